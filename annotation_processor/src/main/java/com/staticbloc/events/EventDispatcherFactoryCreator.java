@@ -7,12 +7,19 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
-import com.squareup.javapoet.TypeVariableName;
 import com.squareup.javapoet.WildcardTypeName;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeMirror;
@@ -34,116 +41,402 @@ public class EventDispatcherFactoryCreator {
     this.elementUtils = elementUtils;
   }
 
-  public JavaFile createDispatcherFactory() {
-    return JavaFile.builder("com.staticbloc.events", createFactoryClass().build()).build();
+  /**
+   * Creates a factory for each subscriber class, named after that class (see {@link #getFactoryClassName(String)}),
+   * so that every module can generate its own factories without their names clashing. Each factory only depends
+   * on its subscriber class; the runtime finds them through {@link #createRegistry(Set, Elements)}.
+   */
+  public List<JavaFile> createDispatcherFactories() {
+    List<JavaFile> files = new ArrayList<>(map.size());
+    for(String enclosingClassFQN : map.keySet()) {
+      files.add(JavaFile.builder("com.staticbloc.events",
+              createFactoryClass(enclosingClassFQN, map.get(enclosingClassFQN)).build()).build());
+    }
+    return files;
   }
 
-  private TypeSpec.Builder createFactoryClass() {
+  private TypeSpec.Builder createFactoryClass(String enclosingClassFQN, Set<EventHandlerRegistration> registrations) {
     MethodSpec factoryConstructor = MethodSpec.constructorBuilder()
             .addModifiers(Modifier.PUBLIC)
             .build();
 
-    MethodSpec.Builder createDispatcherMethod = MethodSpec.methodBuilder("createDispatcher")
+    MethodSpec createDispatcherMethod = MethodSpec.methodBuilder("createDispatcher")
             .addModifiers(Modifier.PUBLIC)
             .addAnnotation(Override.class)
             .addParameter(Object.class, "o", Modifier.FINAL)
-            .returns(EventDispatcher.class);
-
-    for(String enclosingClassFQN : map.keySet()) {
-      Set<EventHandlerRegistration> registrations = map.get(enclosingClassFQN);
-      createDispatcherMethod = createDispatcherMethod
-              .beginControlFlow("if(o.getClass().equals($L))", enclosingClassFQN + ".class")
-              .addStatement("return $L", createEventDispatcherImplementation(enclosingClassFQN, registrations))
-              .endControlFlow();
-    }
+            .returns(EventDispatcher.class)
+            .addStatement("return new $L(($L) o)", getEventDispatcherClassName(enclosingClassFQN), enclosingClassFQN)
+            .build();
 
-    createDispatcherMethod = createDispatcherMethod.addStatement("return null");
+    MethodSpec createWeakDispatcherMethod = MethodSpec.methodBuilder("createWeakDispatcher")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(Object.class, "o", Modifier.FINAL)
+            .addParameter(referenceQueueOfObject(), "referenceQueue", Modifier.FINAL)
+            .returns(EventDispatcher.class)
+            .addStatement("return new $L(new $T<$L>(($L) o, referenceQueue))", getEventDispatcherClassName(enclosingClassFQN),
+                    WeakReference.class, enclosingClassFQN, enclosingClassFQN)
+            .build();
 
-    return TypeSpec.classBuilder("EventDispatcherFactoryImpl")
+    return TypeSpec.classBuilder(getFactoryClassName(enclosingClassFQN))
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
             .addSuperinterface(EventDispatcherFactory.class)
+            .addOriginatingElement(elementUtils.getTypeElement(enclosingClassFQN))
             .addMethod(factoryConstructor)
-            .addMethod(createDispatcherMethod.build());
+            .addMethod(createDispatcherMethod)
+            .addMethod(createWeakDispatcherMethod)
+            .addType(createEventDispatcherImplementation(enclosingClassFQN, registrations));
+  }
 
+  /**
+   * Creates the {@link EventDispatcherFactoryRegistry} for every subscriber class in this module, which
+   * {@link #getRegistryClassName(Set)} names.
+   */
+  public static JavaFile createRegistry(Set<String> enclosingClassFQNs, Elements elementUtils) {
+    MethodSpec.Builder registerFactoriesMethod = MethodSpec.methodBuilder("registerFactories")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .addParameter(ParameterizedTypeName.get(ClassName.get(Map.class),
+                    ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class)),
+                    ClassName.get(EventDispatcherFactory.class)), "factories");
+
+    TypeSpec.Builder registryClass = TypeSpec.classBuilder(getRegistryClassName(enclosingClassFQNs))
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(EventDispatcherFactoryRegistry.class);
+
+    for(String enclosingClassFQN : enclosingClassFQNs) {
+      registerFactoriesMethod.addStatement("factories.put($L.class, new $L())", enclosingClassFQN,
+              getFactoryClassName(enclosingClassFQN));
+      registryClass.addOriginatingElement(elementUtils.getTypeElement(enclosingClassFQN));
+    }
+
+    return JavaFile.builder("com.staticbloc.events",
+            registryClass.addMethod(registerFactoriesMethod.build()).build()).build();
+  }
+
+  /**
+   * Every module's registry is in the same package, so it is named after a hash of the module's subscriber classes,
+   * which no other module has.
+   */
+  public static String getRegistryClassName(Set<String> enclosingClassFQNs) {
+    StringBuilder names = new StringBuilder();
+    for(String enclosingClassFQN : new TreeSet<>(enclosingClassFQNs)) {
+      names.append(enclosingClassFQN).append(';');
+    }
+    return String.format("EventDispatcherFactoryRegistry_%08x", names.toString().hashCode());
   }
 
+  private static ParameterizedTypeName referenceQueueOfObject() {
+    return ParameterizedTypeName.get(ClassName.get(ReferenceQueue.class), ClassName.get(Object.class));
+  }
+
+  private static String getFactoryClassName(String enclosingClassFQN) {
+    return toFlatName(enclosingClassFQN) + EventDispatcherFactory.CLASS_NAME_SUFFIX;
+  }
+
+  private static String getEventDispatcherClassName(String enclosingClassFQN) {
+    return toFlatName(enclosingClassFQN) + "_EventDispatcher";
+  }
+
+  /**
+   * The underscores are escaped first, so that e.g. {@code a.b_C} and {@code a_b.C} don't get the same name.
+   */
+  private static String toFlatName(String enclosingClassFQN) {
+    return enclosingClassFQN.replace("_", "__").replace('.', '_');
+  }
+
+  /**
+   * The registrations are given event ids in the order that they are iterated (which is the order that
+   * a posted event has to be checked against them), and the generated tables are indexed by those ids.
+   */
   private TypeSpec createEventDispatcherImplementation(String enclosingClassFQN, Set<EventHandlerRegistration> registrations) {
     TypeName enclosingClassTypeName = TypeName.get(getEnclosingClassTypeMirror(enclosingClassFQN));
+    boolean returnsResults = false;
+    for(EventHandlerRegistration registration : registrations) {
+      returnsResults |= registration.returnsResult();
+    }
 
     ParameterizedTypeName classOfEvent = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Event.class));
-
-    TypeSpec.Builder eventDispatcherBuilder = TypeSpec.anonymousClassBuilder("")
-            .addSuperinterface(EventDispatcher.class)
-            .addField(FieldSpec.builder(enclosingClassTypeName, "subject", Modifier.PRIVATE)
-                    .initializer("$L", String.format("(%s) o", enclosingClassFQN))
+    ParameterizedTypeName listOfClassOfEvent = ParameterizedTypeName.get(ClassName.get(List.class), classOfEvent);
+    ParameterizedTypeName setOfClassOfEvent = ParameterizedTypeName.get(ClassName.get(Set.class), classOfEvent);
+    ParameterizedTypeName weakReferenceOfEnclosingClass = ParameterizedTypeName.get(ClassName.get(WeakReference.class), enclosingClassTypeName);
+
+    TypeSpec.Builder dispatcherClass = TypeSpec.classBuilder(getEventDispatcherClassName(enclosingClassFQN))
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .superclass(EventDispatcher.class)
+            .addField(createEventTypesField(listOfClassOfEvent, classOfEvent, registrations))
+            .addField(FieldSpec.builder(setOfClassOfEvent, "dispatchableEvents", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$T.unmodifiableSet(new $T<$T>(eventTypes))", Collections.class, LinkedHashSet.class, classOfEvent)
+                    .build())
+            .addField(createRunTypesField(registrations))
+            .addField(createConflatedField(registrations))
+            .addField(createExecutorNamesField(registrations))
+            .addField(createPrioritiesField(registrations))
+            // only one of these is set, depending on whether the subscriber subscribed weakly
+            .addField(enclosingClassTypeName, "subject", Modifier.PRIVATE, Modifier.FINAL)
+            .addField(weakReferenceOfEnclosingClass, "weakSubject", Modifier.PRIVATE, Modifier.FINAL)
+            .addMethod(MethodSpec.constructorBuilder()
+                    .addParameter(enclosingClassTypeName, "subject")
+                    .addStatement("this.subject = subject")
+                    .addStatement("this.weakSubject = null")
+                    .build())
+            .addMethod(MethodSpec.constructorBuilder()
+                    .addParameter(weakReferenceOfEnclosingClass, "weakSubject")
+                    .addStatement("this.subject = null")
+                    .addStatement("this.weakSubject = weakSubject")
                     .build())
-            .addMethod(createEventDispatchMethod(registrations))
-            .addMethod(createGetDispatchableEventsMethod(classOfEvent))
-            .addMethod(createGetRunTypeForEventMethod(classOfEvent))
+            .addMethod(createGetDispatchableEventsMethod(setOfClassOfEvent))
+            .addMethod(createGetEventIdMethod(classOfEvent))
+            .addMethod(createGetRunTypeMethod())
+            .addMethod(createIsConflatedMethod())
+            .addMethod(createGetExecutorNameMethod())
+            .addMethod(createGetPriorityMethod())
+            .addMethod(createGetSubjectReferenceMethod())
             .addMethod(createEventDispatcherEqualsMethod())
             .addMethod(createEventDispatcherHashCodeMethod());
 
-    eventDispatcherBuilder = createEventsToRunTypeMap(eventDispatcherBuilder, classOfEvent, registrations);
+    // the dispatchers of subscribers that don't have a handler that returns a value don't need to pay for one
+    if(returnsResults) {
+      dispatcherClass
+              .addField(createResultsField(registrations))
+              .addMethod(createHasResultMethod())
+              .addMethod(MethodSpec.methodBuilder("dispatchEvent")
+                      .addAnnotation(Override.class)
+                      .addModifiers(Modifier.PUBLIC)
+                      .addParameter(TypeName.INT, "eventId")
+                      .addParameter(Event.class, "event")
+                      .addStatement("dispatchEventForResult(eventId, event)")
+                      .build())
+              .addMethod(createEventDispatchForResultMethod(enclosingClassTypeName, registrations));
+    }
+    else {
+      dispatcherClass.addMethod(createEventDispatchMethod(enclosingClassTypeName, registrations));
+    }
 
-    return eventDispatcherBuilder.build();
+    return dispatcherClass.build();
   }
 
-  private static TypeSpec.Builder createEventsToRunTypeMap(TypeSpec.Builder builder, ParameterizedTypeName classOfEvent, Set<EventHandlerRegistration> registrations) {
-    return builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(Map.class), classOfEvent, TypeName.get(RunType.class)),
-            "eventsToRunTypeMap", Modifier.PRIVATE, Modifier.FINAL)
-            .initializer("createEventsToRunTypeMap()")
-            .build())
-            .addMethod(createEventsToRunTypeMapMethod(registrations, classOfEvent));
+  private static FieldSpec createEventTypesField(ParameterizedTypeName listOfClassOfEvent, ParameterizedTypeName classOfEvent,
+                                                 Set<EventHandlerRegistration> registrations) {
+    StringBuilder eventTypes = new StringBuilder();
+    for(EventHandlerRegistration registration : registrations) {
+      if(eventTypes.length() > 0) {
+        eventTypes.append(", ");
+      }
+      eventTypes.append(registration.getEventParameterFQN()).append(".class");
+    }
+
+    return FieldSpec.builder(listOfClassOfEvent, "eventTypes", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("$T.unmodifiableList($T.<$T>asList($L))", Collections.class, Arrays.class, classOfEvent, eventTypes.toString())
+            .build();
   }
 
-  private static MethodSpec createEventsToRunTypeMapMethod(Set<EventHandlerRegistration> registrations, ParameterizedTypeName classOfEvent) {
-    MethodSpec.Builder registrationInfoMethodBuilder = MethodSpec.methodBuilder("createEventsToRunTypeMap")
-            .addModifiers(Modifier.PRIVATE)
-            .returns(ParameterizedTypeName.get(ClassName.get(Map.class), classOfEvent, TypeName.get(RunType.class)));
+  private static FieldSpec createRunTypesField(Set<EventHandlerRegistration> registrations) {
+    StringBuilder runTypes = new StringBuilder();
+    for(EventHandlerRegistration registration : registrations) {
+      if(runTypes.length() > 0) {
+        runTypes.append(", ");
+      }
+      runTypes.append("RunType.").append(registration.getRunType().name());
+    }
 
-    registrationInfoMethodBuilder.addStatement("$T<$T, $T> eventsToRunTypeMap = new $T<$T, $T>()", Map.class, classOfEvent, RunType.class,
-            HashMap.class, classOfEvent, RunType.class);
+    return FieldSpec.builder(RunType[].class, "runTypes", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("new $T[] {$L}", RunType.class, runTypes.toString())
+            .build();
+  }
+
+  private static FieldSpec createConflatedField(Set<EventHandlerRegistration> registrations) {
+    StringBuilder conflated = new StringBuilder();
     for(EventHandlerRegistration registration : registrations) {
-      registrationInfoMethodBuilder.addStatement("eventsToRunTypeMap.put($L, $L.$L)",
-              String.format("%s.class", registration.getEventParameterFQN()), "RunType", registration.getRunType());
+      if(conflated.length() > 0) {
+        conflated.append(", ");
+      }
+      conflated.append(registration.isConflated());
     }
 
-    registrationInfoMethodBuilder.addStatement("return eventsToRunTypeMap");
+    return FieldSpec.builder(boolean[].class, "conflated", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("new boolean[] {$L}", conflated.toString())
+            .build();
+  }
 
-    return registrationInfoMethodBuilder.build();
+  private static FieldSpec createExecutorNamesField(Set<EventHandlerRegistration> registrations) {
+    StringBuilder format = new StringBuilder("new $T[] {");
+    List<Object> args = new ArrayList<>();
+    args.add(String.class);
+    for(EventHandlerRegistration registration : registrations) {
+      if(args.size() > 1) {
+        format.append(", ");
+      }
+      format.append("$S");
+      args.add(registration.getExecutorName());
+    }
+    format.append("}");
+
+    return FieldSpec.builder(String[].class, "executorNames", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer(format.toString(), args.toArray())
+            .build();
   }
 
-  private static MethodSpec createEventDispatchMethod(Set<EventHandlerRegistration> registrations) {
-    TypeVariableName eventType = TypeVariableName.get("T", Event.class);
+  private static FieldSpec createPrioritiesField(Set<EventHandlerRegistration> registrations) {
+    StringBuilder priorities = new StringBuilder();
+    for(EventHandlerRegistration registration : registrations) {
+      if(priorities.length() > 0) {
+        priorities.append(", ");
+      }
+      priorities.append(registration.getPriority());
+    }
+
+    return FieldSpec.builder(int[].class, "priorities", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("new int[] {$L}", priorities.toString())
+            .build();
+  }
 
+  private static MethodSpec createEventDispatchMethod(TypeName enclosingClassTypeName, Set<EventHandlerRegistration> registrations) {
     MethodSpec.Builder dispatchMethodBuilder = MethodSpec.methodBuilder("dispatchEvent")
             .addAnnotation(Override.class)
             .addModifiers(Modifier.PUBLIC)
-            .addTypeVariable(eventType)
-            .addParameter(eventType, "event");
+            .addParameter(TypeName.INT, "eventId")
+            .addParameter(Event.class, "event")
+            .beginControlFlow("if(isDispatchBlocked(eventId))")
+            .addStatement("return")
+            .endControlFlow()
+            .addStatement("$T subject = this.subject != null ? this.subject : weakSubject.get()", enclosingClassTypeName)
+            .beginControlFlow("if(subject == null)")
+            .addStatement("return")
+            .endControlFlow()
+            .beginControlFlow("switch(eventId)");
+
+    int eventId = 0;
+    for(EventHandlerRegistration registration : registrations) {
+      dispatchMethodBuilder = addEventDispatchStatement(dispatchMethodBuilder, eventId++, registration);
+    }
+
+    return dispatchMethodBuilder.endControlFlow().build();
+  }
+
+  private static FieldSpec createResultsField(Set<EventHandlerRegistration> registrations) {
+    StringBuilder results = new StringBuilder();
+    for(EventHandlerRegistration registration : registrations) {
+      if(results.length() > 0) {
+        results.append(", ");
+      }
+      results.append(registration.returnsResult());
+    }
+
+    return FieldSpec.builder(boolean[].class, "results", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("new boolean[] {$L}", results.toString())
+            .build();
+  }
+
+  private static MethodSpec createEventDispatchForResultMethod(TypeName enclosingClassTypeName, Set<EventHandlerRegistration> registrations) {
+    MethodSpec.Builder dispatchMethodBuilder = MethodSpec.methodBuilder("dispatchEventForResult")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(Object.class)
+            .addParameter(TypeName.INT, "eventId")
+            .addParameter(Event.class, "event")
+            .beginControlFlow("if(isDispatchBlocked(eventId))")
+            .addStatement("return null")
+            .endControlFlow()
+            .addStatement("$T subject = this.subject != null ? this.subject : weakSubject.get()", enclosingClassTypeName)
+            .beginControlFlow("if(subject == null)")
+            .addStatement("return null")
+            .endControlFlow()
+            .beginControlFlow("switch(eventId)");
 
+    int eventId = 0;
     for(EventHandlerRegistration registration : registrations) {
-      dispatchMethodBuilder = addEventDispatchStatement(dispatchMethodBuilder, registration);
+      dispatchMethodBuilder.addCode("case $L:\n", eventId++);
+      if(registration.returnsResult()) {
+        dispatchMethodBuilder.addStatement("$>return subject.$L(($L)event)$<", registration.getMethodName(), registration.getEventParameterFQN());
+      }
+      else {
+        dispatchMethodBuilder
+            .addStatement("$>subject.$L(($L)event)", registration.getMethodName(), registration.getEventParameterFQN())
+            .addStatement("return null$<");
+      }
     }
 
-    return dispatchMethodBuilder.build();
+    return dispatchMethodBuilder.endControlFlow()
+            .addStatement("return null")
+            .build();
   }
 
-  private static MethodSpec createGetDispatchableEventsMethod(ParameterizedTypeName classOfEvent) {
+  private static MethodSpec createHasResultMethod() {
+    return MethodSpec.methodBuilder("hasResult")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(TypeName.BOOLEAN)
+            .addParameter(TypeName.INT, "eventId")
+            .addStatement("return results[eventId]")
+            .build();
+  }
+
+  private static MethodSpec createGetDispatchableEventsMethod(ParameterizedTypeName setOfClassOfEvent) {
     return MethodSpec.methodBuilder("getDispatchableEvents")
             .addModifiers(Modifier.PUBLIC)
             .addAnnotation(Override.class)
-            .returns(ParameterizedTypeName.get(ClassName.get(Set.class), classOfEvent))
-            .addStatement("return eventsToRunTypeMap.keySet()")
+            .returns(setOfClassOfEvent)
+            .addStatement("return dispatchableEvents")
             .build();
   }
 
-  private static MethodSpec createGetRunTypeForEventMethod(ParameterizedTypeName classOfEvent) {
-    return MethodSpec.methodBuilder("getRunTypeForEvent")
+  private static MethodSpec createGetEventIdMethod(ParameterizedTypeName classOfEvent) {
+    return MethodSpec.methodBuilder("getEventId")
             .addModifiers(Modifier.PUBLIC)
             .addAnnotation(Override.class)
-            .returns(RunType.class)
+            .returns(TypeName.INT)
             .addParameter(classOfEvent, "event")
-            .addStatement("return eventsToRunTypeMap.get(event)")
+            .addStatement("return eventTypes.indexOf(event)")
+            .build();
+  }
+
+  private static MethodSpec createGetRunTypeMethod() {
+    return MethodSpec.methodBuilder("getRunType")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(RunType.class)
+            .addParameter(TypeName.INT, "eventId")
+            .addStatement("return runTypes[eventId]")
+            .build();
+  }
+
+  private static MethodSpec createIsConflatedMethod() {
+    return MethodSpec.methodBuilder("isConflated")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(TypeName.BOOLEAN)
+            .addParameter(TypeName.INT, "eventId")
+            .addStatement("return conflated[eventId]")
+            .build();
+  }
+
+  private static MethodSpec createGetExecutorNameMethod() {
+    return MethodSpec.methodBuilder("getExecutorName")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(String.class)
+            .addParameter(TypeName.INT, "eventId")
+            .addStatement("return executorNames[eventId]")
+            .build();
+  }
+
+  private static MethodSpec createGetPriorityMethod() {
+    return MethodSpec.methodBuilder("getPriority")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(TypeName.INT)
+            .addParameter(TypeName.INT, "eventId")
+            .addStatement("return priorities[eventId]")
+            .build();
+  }
+
+  private static MethodSpec createGetSubjectReferenceMethod() {
+    return MethodSpec.methodBuilder("getSubjectReference")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(Override.class)
+            .returns(ParameterizedTypeName.get(ClassName.get(Reference.class), WildcardTypeName.subtypeOf(Object.class)))
+            .addStatement("return weakSubject")
             .build();
   }
 
@@ -165,16 +458,15 @@ public class EventDispatcherFactoryCreator {
             .addAnnotation(Override.class)
             .addModifiers(Modifier.PUBLIC)
             .returns(TypeName.INT)
-            .addStatement("return subject.hashCode()")
+            .addStatement("return subject != null ? subject.hashCode() : weakSubject.hashCode()")
             .build();
   }
 
-  private static MethodSpec.Builder addEventDispatchStatement(MethodSpec.Builder builder, EventHandlerRegistration registration) {
+  private static MethodSpec.Builder addEventDispatchStatement(MethodSpec.Builder builder, int eventId, EventHandlerRegistration registration) {
     return builder
-        .beginControlFlow("if(event instanceof $L && !isDispatchBlocked($L.class))", registration.getEventParameterFQN(), registration.getEventParameterFQN())
-        .addStatement("subject.$L(($L)event)", registration.getMethodName(), registration.getEventParameterFQN())
-        .addStatement("return")
-        .endControlFlow();
+        .addCode("case $L:\n", eventId)
+        .addStatement("$>subject.$L(($L)event)", registration.getMethodName(), registration.getEventParameterFQN())
+        .addStatement("break$<");
   }
 
   private TypeMirror getEnclosingClassTypeMirror(String enclosingClassFQN) {
@@ -3,6 +3,7 @@ package com.staticbloc.events;
 import com.squareup.javapoet.JavaFile;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -16,12 +17,16 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 
 @SupportedAnnotationTypes("com.staticbloc.events.EventHandler")
 public class EventHandlerProcessor extends AbstractProcessor {
   private EventHandlerRegistrationParser eventHandlerRegistrationParser;
   private EventComparator eventComparator;
-  private Map<String, Set<EventHandlerRegistration>> map;
+  // every subscriber class that got a factory in any round, for the module's registry
+  private final Set<String> subscriberClasses = new TreeSet<>();
+  private boolean wroteRegistry;
 
   @Override
   public synchronized void init(ProcessingEnvironment processingEnv) {
@@ -29,7 +34,6 @@ public class EventHandlerProcessor extends AbstractProcessor {
 
     eventHandlerRegistrationParser = new EventHandlerRegistrationParser(processingEnv);
     eventComparator = new EventComparator(processingEnv.getTypeUtils());
-    map  = new HashMap<>();
   }
 
   @Override public SourceVersion getSupportedSourceVersion() {
@@ -38,10 +42,16 @@ public class EventHandlerProcessor extends AbstractProcessor {
 
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-    boolean generateEventDispatcherFactoryImplementation = false;
+    // only the subscriber classes from this round, since every class's factory is written in the round it shows up in
+    Map<String, Set<EventHandlerRegistration>> map = new HashMap<>();
+    Element firstElement = null;
 
     for(TypeElement t : annotations) {
       for(Element element : roundEnv.getElementsAnnotatedWith(t)) {
+        if(firstElement == null) {
+          firstElement = element;
+        }
+
         EventHandlerRegistration eventHandlerRegistration;
         try {
           eventHandlerRegistration = eventHandlerRegistrationParser.parse(element);
@@ -62,15 +72,11 @@ public class EventHandlerProcessor extends AbstractProcessor {
         }
 
         eventHandlerRegistrations.add(eventHandlerRegistration);
-        if(!generateEventDispatcherFactoryImplementation) {
-          generateEventDispatcherFactoryImplementation = true;
-        }
       }
     }
 
-    if(generateEventDispatcherFactoryImplementation) {
-      EventDispatcherFactoryCreator creator = new EventDispatcherFactoryCreator(map, processingEnv.getElementUtils());
-      JavaFile file = creator.createDispatcherFactory();
+    EventDispatcherFactoryCreator creator = new EventDispatcherFactoryCreator(map, processingEnv.getElementUtils());
+    for(JavaFile file : creator.createDispatcherFactories()) {
       try {
         file.writeTo(processingEnv.getFiler());
       } catch (IOException e) {
@@ -78,9 +84,43 @@ public class EventHandlerProcessor extends AbstractProcessor {
       }
     }
 
+    if(!map.isEmpty() && wroteRegistry) {
+      printError(firstElement, "@EventHandlers can't be added by sources that are generated after the " +
+          "EventDispatcherFactoryRegistry was, since it wouldn't have their factories");
+    }
+    subscriberClasses.addAll(map.keySet());
+
+    // the registry is written in the first round without new subscribers, which is after the round that wrote the
+    // last factories, and not in the last round, whose generated sources wouldn't be compiled
+    if(map.isEmpty() && !subscriberClasses.isEmpty() && !wroteRegistry && !roundEnv.processingOver()) {
+      writeRegistry();
+    }
+
     return true;
   }
 
+  /**
+   * Writes the {@link EventDispatcherFactoryRegistry} for every subscriber class in this module, and lists it as
+   * a service, which is how the library finds it.
+   */
+  private void writeRegistry() {
+    wroteRegistry = true;
+    JavaFile registry = EventDispatcherFactoryCreator.createRegistry(subscriberClasses, processingEnv.getElementUtils());
+    Element[] originatingElements = registry.typeSpec.originatingElements.toArray(new Element[0]);
+    try {
+      registry.writeTo(processingEnv.getFiler());
+
+      FileObject services = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+          "META-INF/services/" + EventDispatcherFactoryRegistry.class.getName(), originatingElements);
+      try(Writer writer = services.openWriter()) {
+        writer.write(registry.packageName + "." + registry.typeSpec.name + "\n");
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Couldn't write the EventDispatcherFactoryRegistry: " + e.getMessage());
+    }
+  }
+
   private void printError(Element element, String message) {
     processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
   }
@@ -17,10 +17,19 @@ public class EventHandlerRegistration {
   private TypeMirror eventParameter;
   private String eventParameterFQN;
   private RunType runType;
+  private boolean conflate;
+  private String executorName;
+  private int priority;
+  private boolean returnsResult;
 
-  public EventHandlerRegistration(EventHandler eventHandler, String methodName, TypeElement enclosingClass, TypeElement eventParameter) {
+  public EventHandlerRegistration(EventHandler eventHandler, String methodName, TypeElement enclosingClass, TypeElement eventParameter,
+                                  boolean returnsResult) {
     this.methodName = methodName;
+    this.returnsResult = returnsResult;
     runType = eventHandler.runType();
+    conflate = eventHandler.conflate();
+    executorName = eventHandler.executor().isEmpty() ? null : eventHandler.executor();
+    priority = eventHandler.priority();
 
     this.enclosingClass = enclosingClass.asType();
     this.eventParameter = eventParameter.asType();
@@ -53,6 +62,28 @@ public class EventHandlerRegistration {
     return runType;
   }
 
+  public boolean isConflated() {
+    return conflate;
+  }
+
+  /**
+   * @return the name of the executor for a {@link RunType#EXECUTOR} handler, or {@code null}
+   */
+  public String getExecutorName() {
+    return executorName;
+  }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  /**
+   * @return whether the handler's method returns a value that can be the response to a request
+   */
+  public boolean returnsResult() {
+    return returnsResult;
+  }
+
   @Override
   public String toString() {
     return String.format("%s#%s(%s) - %s", enclosingClass.toString(), methodName, eventParameter.toString(), runType.name());
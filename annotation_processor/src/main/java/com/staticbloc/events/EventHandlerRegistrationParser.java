@@ -11,6 +11,7 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
@@ -44,10 +45,14 @@ public class EventHandlerRegistrationParser {
 
     checkMethodModifiers(methodElement);
 
+    checkExecutor(handler);
+
     ExecutableElement eventHandlerMethod = checkMethodForParameterizedType(methodElement);
 
     VariableElement eventParameterElement = checkMethodParameter(eventHandlerMethod);
 
+    checkReturnType(handler, eventHandlerMethod);
+
     return createEventHandlerMethodInfo(handler, eventHandlerMethod, eventParameterElement);
   }
 
@@ -68,6 +73,16 @@ public class EventHandlerRegistrationParser {
     }
   }
 
+  private void checkExecutor(EventHandler handler) throws EventHandlerParseException {
+    boolean hasExecutor = !handler.executor().isEmpty();
+    if(handler.runType() == RunType.EXECUTOR && !hasExecutor) {
+      throw new EventHandlerParseException("An @EventHandler with RunType.EXECUTOR must name its executor");
+    }
+    else if(handler.runType() != RunType.EXECUTOR && hasExecutor) {
+      throw new EventHandlerParseException("An @EventHandler can only name an executor if it uses RunType.EXECUTOR");
+    }
+  }
+
   private ExecutableElement checkMethodForParameterizedType(Element methodElement) throws EventHandlerParseException {
     ExecutableElement eventHandlerMethod = (ExecutableElement) methodElement;
 
@@ -96,6 +111,12 @@ public class EventHandlerRegistrationParser {
     }
   }
 
+  private void checkReturnType(EventHandler handler, ExecutableElement eventHandlerMethod) throws EventHandlerParseException {
+    if(eventHandlerMethod.getReturnType().getKind() != TypeKind.VOID && handler.conflate()) {
+      throw new EventHandlerParseException("A conflated @EventHandler can't return a value, since the events that it skips would never get a response");
+    }
+  }
+
   private EventHandlerRegistration createEventHandlerMethodInfo(EventHandler handler, ExecutableElement eventHandlerMethod,
                                                               VariableElement eventParameterElement) throws EventHandlerParseException {
 
@@ -115,6 +136,7 @@ public class EventHandlerRegistrationParser {
       } while (enclosingElement != null && enclosingElement instanceof TypeElement);
     }
     TypeElement eventType = ((TypeElement) typeUtils.asElement(eventParameterElement.asType()));
-    return new EventHandlerRegistration(handler, eventHandlerMethod.getSimpleName().toString(), enclosingClass, eventType);
+    return new EventHandlerRegistration(handler, eventHandlerMethod.getSimpleName().toString(), enclosingClass, eventType,
+        eventHandlerMethod.getReturnType().getKind() != TypeKind.VOID);
   }
 }
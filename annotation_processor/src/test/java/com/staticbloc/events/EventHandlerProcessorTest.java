@@ -49,4 +49,160 @@ public class EventHandlerProcessorTest {
         .processedWith(new EventHandlerProcessor())
         .compilesWithoutError();
   }
+
+  @Test
+  public void testMultipleSubscriberClasses() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class E implements Event {}",
+        "",
+        "  public static class Subscriber1 {",
+        "    @EventHandler() public void test(E t) {}",
+        "  }",
+        "",
+        "  public static class Subscriber2 {",
+        "    @EventHandler(runType = RunType.MAIN) public void test(E t) {}",
+        "  }",
+        "",
+        "  public static class Subscriber3 {",
+        "    @EventHandler(runType = RunType.DEFAULT) public void test(E t) {}",
+        "  }",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testConflatedHandlers() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Progress implements Event {}",
+        "",
+        "  public static class Done implements Event {}",
+        "",
+        "  @EventHandler(runType = RunType.MAIN, conflate = true) public void test(Progress t) {}",
+        "  @EventHandler(runType = RunType.MAIN) public void test(Done t) {}",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testExecutorHandlers() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Request implements Event {}",
+        "",
+        "  public static class Response implements Event {}",
+        "",
+        "  public static class Log implements Event {}",
+        "",
+        "  @EventHandler(runType = RunType.EXECUTOR, executor = \"io\") public void test(Request t) {}",
+        "  @EventHandler(runType = RunType.VIRTUAL_THREAD) public void test(Response t) {}",
+        "  @EventHandler(runType = RunType.EXECUTOR, executor = \"disk \\\"logs\\\"\") public void test(Log t) {}",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testHandlerPriorities() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Click extends ConsumableEvent {}",
+        "",
+        "  public static class Scroll implements Event {}",
+        "",
+        "  @EventHandler(priority = 10) public void test(Click t) { t.consume(); }",
+        "  @EventHandler(priority = -1) public void test(Scroll t) {}",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testHandlersThatReturnValues() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Query implements Event {}",
+        "",
+        "  public static class Count implements Event {}",
+        "",
+        "  public static class Log implements Event {}",
+        "",
+        "  @EventHandler(runType = RunType.DEFAULT) public String test(Query t) { return \"\"; }",
+        "  @EventHandler(runType = RunType.MAIN) public int test(Count t) { return 0; }",
+        "  @EventHandler() public void test(Log t) {}",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void testConflatedHandlerThatReturnsAValue() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Progress implements Event {}",
+        "",
+        "  @EventHandler(conflate = true) public String test(Progress t) { return null; }",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .failsToCompile()
+        .withErrorContaining("can't return a value");
+  }
+
+  @Test
+  public void testExecutorHandlerWithoutAnExecutor() {
+    JavaFileObject file = JavaFileObjects.forSourceLines("test.Test",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "",
+        "public class Test {",
+        "  public static class Request implements Event {}",
+        "",
+        "  @EventHandler(runType = RunType.EXECUTOR) public void test(Request t) {}",
+        "}");
+
+    assert_().about(javaSource()).that(file)
+        .processedWith(new EventHandlerProcessor())
+        .failsToCompile()
+        .withErrorContaining("must name its executor");
+  }
 }
@@ -0,0 +1,189 @@
+package com.staticbloc.events;
+
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles a subscriber with the processor, and calls the dispatcher that it generates.
+ */
+public class GeneratedDispatcherTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ClassLoader compile(JavaFileObject... sources) throws Exception {
+    File classes = folder.newFolder();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+        Arrays.asList("-d", classes.getPath(), "-classpath", System.getProperty("java.class.path")),
+        null, Arrays.asList(sources));
+    task.setProcessors(Collections.singletonList(new EventHandlerProcessor()));
+    assertTrue(task.call());
+
+    // the generated classes and the annotations module are loaded together, since EventDispatcher is package private
+    URL annotations = EventDispatcher.class.getProtectionDomain().getCodeSource().getLocation();
+    return new URLClassLoader(new URL[] {classes.toURI().toURL(), annotations}, null);
+  }
+
+  private static Object call(Object target, String methodName, Class<?>[] parameterTypes, Object... args)
+      throws Exception {
+    Class<?> type = target.getClass();
+    Method method = null;
+    while(method == null) {
+      try {
+        method = type.getDeclaredMethod(methodName, parameterTypes);
+      }
+      catch(NoSuchMethodException e) {
+        type = type.getSuperclass();
+      }
+    }
+    method.setAccessible(true);
+    return method.invoke(target, args);
+  }
+
+  @Test
+  public void testEventIdsAndDispatchCallTheRightHandlers() throws Exception {
+    JavaFileObject source = JavaFileObjects.forSourceLines("test.Subscriber",
+        "package test;",
+        "",
+        "import com.staticbloc.events.*;",
+        "import java.util.ArrayList;",
+        "import java.util.List;",
+        "",
+        "public class Subscriber {",
+        "  public static class E implements Event {}",
+        "",
+        "  public static class EE extends E {}",
+        "",
+        "  public static class E2 implements Event {}",
+        "",
+        "  public final List<String> calls = new ArrayList<>();",
+        "",
+        "  @EventHandler(runType = RunType.DEFAULT) public void onE(E e) { calls.add(\"onE\"); }",
+        "  @EventHandler(runType = RunType.DEFAULT) public void onE2(E2 e) { calls.add(\"onE2\"); }",
+        // declared after the handler for its supertype, which it still has to come before
+        "  @EventHandler(runType = RunType.MAIN) public void onEE(EE e) { calls.add(\"onEE\"); }",
+        "}");
+    ClassLoader classLoader = compile(source);
+
+    Class<?> eventClass = classLoader.loadClass("com.staticbloc.events.Event");
+    Class<?> subscriberClass = classLoader.loadClass("test.Subscriber");
+    Class<?> e = classLoader.loadClass("test.Subscriber$E");
+    Class<?> ee = classLoader.loadClass("test.Subscriber$EE");
+    Class<?> e2 = classLoader.loadClass("test.Subscriber$E2");
+
+    Object subscriber = subscriberClass.newInstance();
+    Object factory = classLoader.loadClass("com.staticbloc.events.test_Subscriber_EventDispatcherFactory").newInstance();
+    Object dispatcher = call(factory, "createDispatcher", new Class<?>[] {Object.class}, subscriber);
+
+    Class<?>[] getEventId = new Class<?>[] {Class.class};
+    int eId = (Integer) call(dispatcher, "getEventId", getEventId, e);
+    int eeId = (Integer) call(dispatcher, "getEventId", getEventId, ee);
+    int e2Id = (Integer) call(dispatcher, "getEventId", getEventId, e2);
+    assertTrue(eeId < eId);
+    assertEquals(Arrays.asList(ee, e, e2), Arrays.asList(
+        ((Set<?>) call(dispatcher, "getDispatchableEvents", new Class<?>[0])).toArray()));
+    assertEquals("MAIN", call(dispatcher, "getRunType", new Class<?>[] {int.class}, eeId).toString());
+    assertEquals("DEFAULT", call(dispatcher, "getRunType", new Class<?>[] {int.class}, eId).toString());
+
+    Class<?>[] dispatchEvent = new Class<?>[] {int.class, eventClass};
+    call(dispatcher, "dispatchEvent", dispatchEvent, eeId, ee.newInstance());
+    call(dispatcher, "dispatchEvent", dispatchEvent, eId, e.newInstance());
+    call(dispatcher, "dispatchEvent", dispatchEvent, e2Id, e2.newInstance());
+    // resolved by type, which picks the subtype's handler for an EE
+    call(dispatcher, "dispatchEvent", new Class<?>[] {eventClass}, ee.newInstance());
+    call(dispatcher, "dispatchEvent", new Class<?>[] {eventClass}, e.newInstance());
+
+    List<?> calls = (List<?>) subscriberClass.getField("calls").get(subscriber);
+    assertEquals(Arrays.asList("onEE", "onE", "onE2", "onEE", "onE"), calls);
+  }
+
+  @Test
+  public void testSubscribersWhoseNamesOnlyDifferInDotsAndUnderscoresGetTheirOwnFactories() throws Exception {
+    ClassLoader classLoader = compile(
+        JavaFileObjects.forSourceLines("a.b_C",
+            "package a;",
+            "",
+            "import com.staticbloc.events.*;",
+            "",
+            "public class b_C {",
+            "  @EventHandler public void onEvent(Event e) {}",
+            "}"),
+        JavaFileObjects.forSourceLines("a_b.C",
+            "package a_b;",
+            "",
+            "import com.staticbloc.events.*;",
+            "",
+            "public class C {",
+            "  @EventHandler public void onEvent(Event e) {}",
+            "}"));
+
+    Object dotted = classLoader.loadClass("com.staticbloc.events.a_b__C_EventDispatcherFactory").newInstance();
+    Object underscored = classLoader.loadClass("com.staticbloc.events.a__b_C_EventDispatcherFactory").newInstance();
+    call(dotted, "createDispatcher", new Class<?>[] {Object.class}, classLoader.loadClass("a.b_C").newInstance());
+    call(underscored, "createDispatcher", new Class<?>[] {Object.class}, classLoader.loadClass("a_b.C").newInstance());
+  }
+
+  @Test
+  public void testTheRegistryListsEverySubscribersFactoryAndIsAService() throws Exception {
+    ClassLoader classLoader = compile(
+        JavaFileObjects.forSourceLines("a.First",
+            "package a;",
+            "",
+            "import com.staticbloc.events.*;",
+            "",
+            "public class First {",
+            "  @EventHandler public void onEvent(Event e) {}",
+            "",
+            "  public static class Nested {",
+            "    @EventHandler public void onEvent(Event e) {}",
+            "  }",
+            "}"),
+        JavaFileObjects.forSourceLines("b.Second",
+            "package b;",
+            "",
+            "import com.staticbloc.events.*;",
+            "",
+            "public class Second {",
+            "  @EventHandler public void onEvent(Event e) {}",
+            "}"));
+
+    String service = "META-INF/services/" + EventDispatcherFactoryRegistry.class.getName();
+    try(BufferedReader reader = new BufferedReader(new InputStreamReader(classLoader.getResourceAsStream(service),
+        "UTF-8"))) {
+      Object registry = classLoader.loadClass(reader.readLine().trim()).newInstance();
+      Map<Class<?>, Object> factories = new HashMap<>();
+      call(registry, "registerFactories", new Class<?>[] {Map.class}, factories);
+
+      assertEquals(3, factories.size());
+      assertEquals("com.staticbloc.events.a_First_EventDispatcherFactory",
+          factories.get(classLoader.loadClass("a.First")).getClass().getName());
+      assertEquals("com.staticbloc.events.a_First_Nested_EventDispatcherFactory",
+          factories.get(classLoader.loadClass("a.First$Nested")).getClass().getName());
+      assertEquals("com.staticbloc.events.b_Second_EventDispatcherFactory",
+          factories.get(classLoader.loadClass("b.Second")).getClass().getName());
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.staticbloc.events;
+
+/**
+ * An {@link Event} that a handler can consume, so that the handlers after it don't get it.
+ * <br>
+ * <br>
+ * Once the event is consumed, it isn't delivered to any handler that hasn't started handling it yet, including
+ * the ones it is still queued for. Handlers that are called one after the other on the same thread (e.g. the
+ * {@link RunType#DEFAULT} handlers, or the {@link RunType#MAIN} and {@link RunType#DEFAULT} handlers together when it
+ * is posted on the main thread) are called in {@link EventHandler#priority()} order, so a handler can consume an event to keep it from
+ * lower priority handlers. Handlers on other threads may already be handling it by the time it is consumed.
+ */
+public abstract class ConsumableEvent implements Event {
+  private volatile boolean consumed;
+
+  /**
+   * Stops this event from being delivered to the handlers that come after the current one.
+   */
+  public void consume() {
+    consumed = true;
+  }
+
+  public boolean isConsumed() {
+    return consumed;
+  }
+}
@@ -1,7 +1,10 @@
 package com.staticbloc.events;
 
-import java.util.HashSet;
+import java.lang.ref.Reference;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Created with IntelliJ IDEA.
@@ -11,27 +14,220 @@ import java.util.Set;
  * To change this template use File | Settings | File Templates.
  */
 /*package*/ abstract class EventDispatcher {
-  private Set<Class<? extends Event>> dispatchBlocks;
-
-  public EventDispatcher() {
-    dispatchBlocks = new HashSet<>();
-  }
+  // a bit per event id, set while that handler is blocked; created the first time a handler is blocked
+  private volatile AtomicLongArray dispatchBlocks;
+  // the latest undelivered event for each conflated handler, indexed by event id; created on first use
+  private volatile AtomicReferenceArray<Event> pendingEvents;
+  // 1 for each conflated handler that a delivery of its pending event is scheduled or running for; created on first use
+  private volatile AtomicIntegerArray scheduledDrains;
 
+  /**
+   * Blocks the handler for exactly {@code eventDispatchToBlock}. Every dispatch to it that starts after this returns,
+   * on any thread, is skipped, including dispatches of events that were posted earlier but are still queued.
+   * A dispatch that is already running isn't interrupted.
+   */
   public void blockDispatch(Class<? extends Event> eventDispatchToBlock) {
-    dispatchBlocks.add(eventDispatchToBlock);
+    int eventId = getEventId(eventDispatchToBlock);
+    if(eventId >= 0) {
+      AtomicLongArray dispatchBlocks = getDispatchBlocks();
+      int index = eventId >>> 6;
+      long bit = 1L << eventId;
+      long blocks;
+      do {
+        blocks = dispatchBlocks.get(index);
+      } while(!dispatchBlocks.compareAndSet(index, blocks, blocks | bit));
+    }
   }
 
+  /**
+   * Unblocks the handler for exactly {@code eventDispatchToUnblock}, with the same visibility as
+   * {@link #blockDispatch(Class)}.
+   */
   public void unblockDispatch(Class<? extends Event> eventDispatchToUnblock) {
-    dispatchBlocks.remove(eventDispatchToUnblock);
+    int eventId = getEventId(eventDispatchToUnblock);
+    AtomicLongArray dispatchBlocks = this.dispatchBlocks;
+    if(eventId >= 0 && dispatchBlocks != null) {
+      int index = eventId >>> 6;
+      long bit = 1L << eventId;
+      long blocks;
+      do {
+        blocks = dispatchBlocks.get(index);
+      } while(!dispatchBlocks.compareAndSet(index, blocks, blocks & ~bit));
+    }
+  }
+
+  protected boolean isDispatchBlocked(int eventId) {
+    AtomicLongArray dispatchBlocks = this.dispatchBlocks;
+    return dispatchBlocks != null && (dispatchBlocks.get(eventId >>> 6) & (1L << eventId)) != 0;
+  }
+
+  private AtomicLongArray getDispatchBlocks() {
+    AtomicLongArray dispatchBlocks = this.dispatchBlocks;
+    if(dispatchBlocks == null) {
+      synchronized(this) {
+        dispatchBlocks = this.dispatchBlocks;
+        if(dispatchBlocks == null) {
+          dispatchBlocks = new AtomicLongArray(Math.max(1, (getDispatchableEvents().size() + 63) >>> 6));
+          this.dispatchBlocks = dispatchBlocks;
+        }
+      }
+    }
+    return dispatchBlocks;
+  }
+
+  /**
+   * Makes {@code event} the next event to be delivered to the conflated handler with the id {@code eventId}.
+   * @return the undelivered event that {@code event} replaced, or {@code null} if there wasn't one
+   */
+  public Event replacePendingEvent(int eventId, Event event) {
+    return getPendingEvents().getAndSet(eventId, event);
+  }
+
+  /**
+   * @return the undelivered event for the conflated handler with the id {@code eventId}, or {@code null} if
+   * there isn't one
+   */
+  public Event takePendingEvent(int eventId) {
+    return getPendingEvents().getAndSet(eventId, null);
   }
 
-  protected boolean isDispatchBlocked(Class<? extends Event> eventDispatch) {
-    return dispatchBlocks.contains(eventDispatch);
+  /**
+   * @return whether there is an undelivered event for the conflated handler with the id {@code eventId}
+   */
+  public boolean hasPendingEvent(int eventId) {
+    return getPendingEvents().get(eventId) != null;
   }
 
-  public abstract <T extends Event> void dispatchEvent(T event);
+  /**
+   * Claims the delivery of the pending events for the conflated handler with the id {@code eventId}, so that only a
+   * single thread delivers to it at a time.
+   * @return {@code true} if the delivery wasn't claimed yet, in which case the caller has to deliver the pending
+   * events and then call {@link #finishDrain(int)}
+   */
+  public boolean startDrain(int eventId) {
+    AtomicIntegerArray scheduledDrains = getScheduledDrains();
+    return scheduledDrains.get(eventId) == 0 && scheduledDrains.compareAndSet(eventId, 0, 1);
+  }
 
+  /**
+   * Releases the claim from {@link #startDrain(int)}.
+   */
+  public void finishDrain(int eventId) {
+    getScheduledDrains().set(eventId, 0);
+  }
+
+  private AtomicIntegerArray getScheduledDrains() {
+    AtomicIntegerArray scheduledDrains = this.scheduledDrains;
+    if(scheduledDrains == null) {
+      synchronized(this) {
+        scheduledDrains = this.scheduledDrains;
+        if(scheduledDrains == null) {
+          scheduledDrains = new AtomicIntegerArray(Math.max(1, getDispatchableEvents().size()));
+          this.scheduledDrains = scheduledDrains;
+        }
+      }
+    }
+    return scheduledDrains;
+  }
+
+  private AtomicReferenceArray<Event> getPendingEvents() {
+    AtomicReferenceArray<Event> pendingEvents = this.pendingEvents;
+    if(pendingEvents == null) {
+      synchronized(this) {
+        pendingEvents = this.pendingEvents;
+        if(pendingEvents == null) {
+          pendingEvents = new AtomicReferenceArray<>(Math.max(1, getDispatchableEvents().size()));
+          this.pendingEvents = pendingEvents;
+        }
+      }
+    }
+    return pendingEvents;
+  }
+
+  /**
+   * Dispatches {@code event} to the first handler whose event type it is an instance of. Prefer resolving the
+   * event id once with {@link #getEventId(Class)} and calling {@link #dispatchEvent(int, Event)}.
+   */
+  public <T extends Event> void dispatchEvent(T event) {
+    int eventId = 0;
+    for(Class<? extends Event> dispatchableEvent : getDispatchableEvents()) {
+      if(dispatchableEvent.isInstance(event)) {
+        dispatchEvent(eventId, event);
+        return;
+      }
+      eventId++;
+    }
+  }
+
+  /**
+   * Dispatches {@code event} to the handler with the id {@code eventId}, unless that handler is blocked.
+   */
+  public abstract void dispatchEvent(int eventId, Event event);
+
+  /**
+   * Like {@link #dispatchEvent(int, Event)}, for a handler that returns a value.
+   * @return what the handler returned, or {@code null} if it didn't return anything or is blocked
+   */
+  public Object dispatchEventForResult(int eventId, Event event) {
+    dispatchEvent(eventId, event);
+    return null;
+  }
+
+  /**
+   * @return the events that have handlers, in the order that they should be checked against a posted event.
+   * An event's position in this set is its event id.
+   */
   public abstract Set<Class<? extends Event>> getDispatchableEvents();
 
-  public abstract RunType getRunTypeForEvent(Class<? extends Event> eventClass);
+  /**
+   * @return the id of the handler for exactly {@code eventClass}, or {@code -1} if there isn't one
+   */
+  public abstract int getEventId(Class<? extends Event> eventClass);
+
+  public abstract RunType getRunType(int eventId);
+
+  /**
+   * @return whether the handler with the id {@code eventId} only cares about the latest event
+   * @see EventHandler#conflate()
+   */
+  public boolean isConflated(int eventId) {
+    return false;
+  }
+
+  /**
+   * @return the name of the executor that the handler with the id {@code eventId} runs on, or {@code null} if it
+   * isn't a {@link RunType#EXECUTOR} handler
+   * @see EventHandler#executor()
+   */
+  public String getExecutorName(int eventId) {
+    return null;
+  }
+
+  /**
+   * @return whether the handler with the id {@code eventId} returns a value that can be the response to a request
+   */
+  public boolean hasResult(int eventId) {
+    return false;
+  }
+
+  /**
+   * @return the priority of the handler with the id {@code eventId}
+   * @see EventHandler#priority()
+   */
+  public int getPriority(int eventId) {
+    return 0;
+  }
+
+  /**
+   * @return the reference to the subscriber if it was subscribed weakly, or {@code null}
+   * @see EventDispatcherFactory#createWeakDispatcher(Object, java.lang.ref.ReferenceQueue)
+   */
+  public Reference<?> getSubjectReference() {
+    return null;
+  }
+
+  public RunType getRunTypeForEvent(Class<? extends Event> eventClass) {
+    int eventId = getEventId(eventClass);
+    return eventId < 0 ? null : getRunType(eventId);
+  }
 }
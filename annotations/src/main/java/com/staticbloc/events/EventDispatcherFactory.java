@@ -1,5 +1,7 @@
 package com.staticbloc.events;
 
+import java.lang.ref.ReferenceQueue;
+
 /**
  * Created with IntelliJ IDEA.
  * User: eygraber
@@ -8,5 +10,20 @@ package com.staticbloc.events;
  * To change this template use File | Settings | File Templates.
  */
 public interface EventDispatcherFactory {
+  /**
+   * The factory for a subscriber class is generated in this package, and named after the subscriber's canonical
+   * name, with each underscore doubled and then the dots replaced by underscores, followed by this suffix (e.g.
+   * {@code com_example_Foo__Bar_EventDispatcherFactory} for {@code com.example.Foo_Bar}). It is found through its
+   * module's {@link EventDispatcherFactoryRegistry}, not by its name.
+   */
+  String CLASS_NAME_SUFFIX = "_EventDispatcherFactory";
+
   EventDispatcher createDispatcher(Object o);
+
+  /**
+   * Creates a dispatcher that only holds a {@link java.lang.ref.WeakReference} to {@code o}, which is registered
+   * with {@code referenceQueue} and returned by {@link EventDispatcher#getSubjectReference()}. Once {@code o} is
+   * collected, the dispatcher drops every event.
+   */
+  EventDispatcher createWeakDispatcher(Object o, ReferenceQueue<Object> referenceQueue);
 }
@@ -0,0 +1,16 @@
+package com.staticbloc.events;
+
+import java.util.Map;
+
+/**
+ * The index of a module's {@link EventDispatcherFactory}s. The processor generates one for every module that has
+ * {@link EventHandler}s, and lists it in the module's {@code META-INF/services/com.staticbloc.events.EventDispatcherFactoryRegistry},
+ * so that the library can find every module's factories with a {@link java.util.ServiceLoader} and merge them.
+ */
+public interface EventDispatcherFactoryRegistry {
+  /**
+   * Puts the factory for each of this module's subscriber classes into {@code factories}, keyed by the subscriber
+   * class.
+   */
+  void registerFactories(Map<Class<?>, EventDispatcherFactory> factories);
+}
@@ -14,4 +14,27 @@ import javax.lang.model.SourceVersion;
 @Target(ElementType.METHOD)
 public @interface EventHandler {
   RunType runType() default RunType.BACKGROUND;
+
+  /**
+   * If {@code true}, only the latest event matters to this handler. An event that is posted while an earlier one
+   * is still waiting to be delivered to it replaces the earlier one instead of being queued behind it.
+   * <br>
+   * <br>
+   * <b>Note:</b> This has no effect on {@link RunType#DEFAULT} handlers, since they are never queued.
+   */
+  boolean conflate() default false;
+
+  /**
+   * The name of the executor that this handler runs on. It is required when {@link #runType()} is
+   * {@link RunType#EXECUTOR}, and can't be used with any other {@code RunType}.
+   */
+  String executor() default "";
+
+  /**
+   * Handlers with a higher priority are called before handlers with a lower one, among the handlers (of every
+   * subscriber) that an event is delivered to on the same thread. Handlers with the same priority are called in
+   * the order they subscribed.
+   * @see ConsumableEvent
+   */
+  int priority() default 0;
 }
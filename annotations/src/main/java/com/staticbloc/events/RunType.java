@@ -20,5 +20,17 @@ public enum RunType {
     /**
      * The event handlers will be called on a background thread.
      */
-    BACKGROUND
+    BACKGROUND,
+    /**
+     * The event handlers will be called on the executor that was registered with {@code Events.registerExecutor}
+     * under the handler's {@link EventHandler#executor()} name. The executor is looked up once, when the handler's
+     * class is subscribed, and a handler's deliveries aren't serialized beyond what the executor itself does.
+     */
+    EXECUTOR,
+    /**
+     * Each event will be handled on its own new virtual thread, which suits handlers that block on I/O.
+     * On runtimes without virtual threads (including Android), each event is handled on a pooled platform
+     * thread instead, with new threads being created as needed.
+     */
+    VIRTUAL_THREAD
 }
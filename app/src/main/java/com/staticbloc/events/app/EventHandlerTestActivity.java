@@ -20,7 +20,7 @@ public class EventHandlerTestActivity extends Activity {
 
   public static class EventImpl implements Event {}
 
-  private Events.OnEventListener eventListener = new Events.OnEventListener() {
+  private Events.OnEventListener<Event> eventListener = new Events.OnEventListener<Event>() {
     @Override
     public void onEvent(Event event) {
       Toast.makeText(EventHandlerTestActivity.this, "Got a listener event too", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,71 @@
+package com.staticbloc.events;
+
+import com.staticbloc.events.benchmarks.BenchmarkSubscribers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generated factories and dispatchers directly, without {@link Events}.
+ * It's in the library's package because {@link EventDispatcher} isn't public.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+  @Param({"1", "4", "16"})
+  public int handlersPerClass;
+
+  @Param({"0", "2", "8"})
+  public int hierarchyDepth;
+
+  private EventDispatcherFactory factory;
+  private Object subscriber;
+  private EventDispatcher dispatcher;
+  private Event event;
+  private int eventId;
+
+  @Setup
+  public void setUp() throws Exception {
+    factory = new EventDispatcherFactories();
+    subscriber = BenchmarkSubscribers.newSubscriber(RunType.DEFAULT, handlersPerClass);
+    dispatcher = factory.createDispatcher(subscriber);
+    event = BenchmarkSubscribers.newEvent(hierarchyDepth);
+    eventId = EventTypes.getHandledEventId(dispatcher, event.getClass());
+  }
+
+  @Benchmark
+  public EventDispatcher createDispatcher() {
+    return factory.createDispatcher(subscriber);
+  }
+
+  /**
+   * What {@link Events#post(Event)} does, once the event id is cached in the route.
+   */
+  @Benchmark
+  public void dispatchById() {
+    dispatcher.dispatchEvent(eventId, event);
+  }
+
+  /**
+   * Resolves the handler by checking the event against each handled type.
+   */
+  @Benchmark
+  public void dispatchByType() {
+    dispatcher.dispatchEvent(event);
+  }
+}
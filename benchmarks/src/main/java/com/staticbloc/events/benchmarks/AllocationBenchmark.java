@@ -0,0 +1,82 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.Event;
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RunType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that posting to warm subscribers doesn't allocate; run it with the gc profiler (which the {@code jmh} task
+ * always does) and look at {@code gc.alloc.rate.norm}, which should be 0 B/op for every run type.
+ * <br>
+ * <br>
+ * {@code BACKGROUND} and {@code MAIN} deliveries come from the {@code EventDelivery} pool, but waking up an idle
+ * lane or main thread drain still submits a task to an executor, and what that allocates is up to the executor.
+ * The background lanes and the main thread run on {@link SpinningExecutor}s, which don't allocate, so that what's
+ * measured is only what the library allocates. {@code burstSize} posts are made before waiting for them, so that
+ * the lanes are busy for some of them and idle for others.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+  @Param({"DEFAULT", "MAIN", "BACKGROUND"})
+  public String runType;
+
+  @Param({"10"})
+  public int subscriberCount;
+
+  @Param({"1", "64"})
+  public int burstSize;
+
+  private SpinningExecutor executor;
+  private SpinningExecutor mainThread;
+  private Events events;
+  private Event event;
+
+  @Setup
+  public void setUp() throws Exception {
+    // the benchmark thread needs a core of its own, since the executors' threads never stop spinning
+    executor = new SpinningExecutor("events-background", Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+    mainThread = new SpinningExecutor("events-main", 1);
+    events = new Events(executor, mainThread);
+
+    for(int i = 0; i < subscriberCount; i++) {
+      events.subscribe(BenchmarkSubscribers.newSubscriber(RunType.valueOf(runType), 1));
+    }
+
+    event = new BenchmarkEvent();
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+    mainThread.shutdownNow();
+  }
+
+  @Benchmark
+  public void postBurst() {
+    long expectedCount = Deliveries.count() + (long) subscriberCount * burstSize;
+    for(int i = 0; i < burstSize; i++) {
+      events.post(event);
+    }
+    Deliveries.awaitCount(expectedCount);
+  }
+}
@@ -0,0 +1,5 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.Event;
+
+public class BenchmarkEvent implements Event {}
@@ -0,0 +1,33 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.Event;
+import com.staticbloc.events.RunType;
+
+/**
+ * Looks up the classes that {@code generateSubscribers} writes to {@code com.staticbloc.events.benchmarks.subscribers}.
+ */
+public final class BenchmarkSubscribers {
+  private static final String PACKAGE = "com.staticbloc.events.benchmarks.subscribers.";
+
+  private BenchmarkSubscribers() {}
+
+  /**
+   * @return a new subscriber with {@code handlerCount} handlers that all run on {@code runType}. Only its last
+   * handler is for {@link BenchmarkEvent}.
+   */
+  public static Object newSubscriber(RunType runType, int handlerCount) throws Exception {
+    String name = runType.name();
+    String prefix = name.charAt(0) + name.substring(1).toLowerCase();
+    return Class.forName(PACKAGE + prefix + "Handlers" + handlerCount).getConstructor().newInstance();
+  }
+
+  /**
+   * @return a new event that is {@code depth} levels below {@link BenchmarkEvent}
+   */
+  public static Event newEvent(int depth) throws Exception {
+    if(depth == 0) {
+      return new BenchmarkEvent();
+    }
+    return (Event) Class.forName(PACKAGE + "HierarchyEvent" + depth).getConstructor().newInstance();
+  }
+}
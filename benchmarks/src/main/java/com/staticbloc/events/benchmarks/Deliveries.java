@@ -0,0 +1,30 @@
+package com.staticbloc.events.benchmarks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the events delivered to the generated benchmark handlers, so that a benchmark can wait for
+ * deliveries that happen on other threads.
+ */
+public final class Deliveries {
+  private static final AtomicLong count = new AtomicLong();
+
+  private Deliveries() {}
+
+  public static void delivered() {
+    count.incrementAndGet();
+  }
+
+  public static long count() {
+    return count.get();
+  }
+
+  /**
+   * Spins until at least {@code expectedCount} events have been delivered.
+   */
+  public static void awaitCount(long expectedCount) {
+    while(count.get() < expectedCount) {
+      Thread.yield();
+    }
+  }
+}
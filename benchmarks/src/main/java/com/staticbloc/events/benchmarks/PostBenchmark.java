@@ -0,0 +1,102 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.Event;
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RingBufferEngine;
+import com.staticbloc.events.RunType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code post} from a background thread until every subscriber's handler has run, so that
+ * {@code BACKGROUND} and {@code MAIN} deliveries are timed end to end and not just until they're queued.
+ * The sample time mode reports the latency percentiles.
+ * <br>
+ * <br>
+ * Each subscriber has {@code handlersPerClass} handlers, and the posted event is {@code hierarchyDepth}
+ * levels below the event type that they handle. A {@code MIXED} run gives the subscribers
+ * {@code DEFAULT}, {@code MAIN} and {@code BACKGROUND} handlers in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostBenchmark {
+  private static final RunType[] MIXED_RUN_TYPES = {RunType.DEFAULT, RunType.MAIN, RunType.BACKGROUND};
+
+  @Param({"1", "10", "100"})
+  public int subscriberCount;
+
+  @Param({"1", "4", "16"})
+  public int handlersPerClass;
+
+  @Param({"0", "2", "8"})
+  public int hierarchyDepth;
+
+  @Param({"DEFAULT", "MAIN", "BACKGROUND", "MIXED"})
+  public String runTypeMix;
+
+  /**
+   * {@code executor} for the default background lanes, or {@code ring} for a {@link RingBufferEngine}
+   */
+  @Param({"executor", "ring"})
+  public String engine;
+
+  private ExecutorService executor;
+  private RingBufferEngine ringBufferEngine;
+  private Events events;
+  private Event event;
+
+  @Setup
+  public void setUp() throws Exception {
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    executor = Executors.newFixedThreadPool(threadCount);
+    if("ring".equals(engine)) {
+      ringBufferEngine = new RingBufferEngine(1024, threadCount, RingBufferEngine.ProducerType.MULTI,
+          RingBufferEngine.WaitStrategy.YIELD);
+      events = new Events(ringBufferEngine);
+    }
+    else {
+      events = new Events(executor);
+    }
+
+    for(int i = 0; i < subscriberCount; i++) {
+      RunType runType = "MIXED".equals(runTypeMix) ? MIXED_RUN_TYPES[i % MIXED_RUN_TYPES.length] : RunType.valueOf(runTypeMix);
+      events.subscribe(BenchmarkSubscribers.newSubscriber(runType, handlersPerClass));
+    }
+
+    event = BenchmarkSubscribers.newEvent(hierarchyDepth);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+    if(ringBufferEngine != null) {
+      ringBufferEngine.shutdown();
+    }
+  }
+
+  @Benchmark
+  public void post() {
+    long expectedCount = Deliveries.count() + subscriberCount;
+    events.post(event);
+    Deliveries.awaitCount(expectedCount);
+  }
+}
@@ -0,0 +1,149 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.MainThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An executor whose threads spin on a bounded array queue instead of parking, so that {@code execute} doesn't
+ * allocate anything (a {@code ThreadPoolExecutor} allocates a queue node for every task, and parking or waking a
+ * thread can allocate as well). That leaves only what the events library itself allocates in a benchmark's
+ * {@code gc.alloc.rate.norm}.
+ * <br>
+ * <br>
+ * With a single thread it can also be the {@link MainThread}. It keeps its threads busy, so it is only meant for
+ * benchmarks.
+ */
+public final class SpinningExecutor extends AbstractExecutorService implements MainThread {
+  private static final int CAPACITY = 4096;
+  private static final int MASK = CAPACITY - 1;
+
+  // a bounded multi producer, multi consumer queue: each slot's sequence says whether it is free for the producer
+  // of that position, or filled for its consumer
+  private final AtomicReferenceArray<Runnable> tasks = new AtomicReferenceArray<>(CAPACITY);
+  private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+  private final AtomicLong producerPosition = new AtomicLong();
+  private final AtomicLong consumerPosition = new AtomicLong();
+
+  private final List<Thread> threads = new ArrayList<>();
+  private volatile boolean shutdown;
+
+  public SpinningExecutor(String name, int threadCount) {
+    for(int i = 0; i < CAPACITY; i++) {
+      sequences.set(i, i);
+    }
+
+    for(int i = 0; i < threadCount; i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          while(!shutdown) {
+            Runnable task = poll();
+            if(task == null) {
+              Thread.yield();
+            }
+            else {
+              task.run();
+            }
+          }
+        }
+      }, name + "-" + i);
+      thread.setDaemon(true);
+      threads.add(thread);
+      thread.start();
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    for(;;) {
+      long position = producerPosition.get();
+      int index = (int) position & MASK;
+      long sequence = sequences.get(index);
+      if(sequence == position) {
+        if(producerPosition.compareAndSet(position, position + 1)) {
+          tasks.set(index, task);
+          sequences.set(index, position + 1);
+          return;
+        }
+      }
+      else if(sequence < position) {
+        // full
+        Thread.yield();
+      }
+    }
+  }
+
+  private Runnable poll() {
+    for(;;) {
+      long position = consumerPosition.get();
+      int index = (int) position & MASK;
+      long sequence = sequences.get(index);
+      if(sequence == position + 1) {
+        if(consumerPosition.compareAndSet(position, position + 1)) {
+          Runnable task = tasks.get(index);
+          tasks.set(index, null);
+          sequences.set(index, position + CAPACITY);
+          return task;
+        }
+      }
+      else if(sequence < position + 1) {
+        // empty
+        return null;
+      }
+    }
+  }
+
+  @Override
+  public boolean isCurrentThread() {
+    return threads.contains(Thread.currentThread());
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    return new ArrayList<>();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    if(!shutdown) {
+      return false;
+    }
+    for(Thread thread : threads) {
+      if(thread.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for(Thread thread : threads) {
+      long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if(remaining <= 0) {
+        return isTerminated();
+      }
+      thread.join(remaining);
+    }
+    return isTerminated();
+  }
+}
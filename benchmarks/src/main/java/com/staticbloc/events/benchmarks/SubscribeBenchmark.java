@@ -0,0 +1,71 @@
+package com.staticbloc.events.benchmarks;
+
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RunType;
+import com.staticbloc.events.benchmarks.subscribers.Subscribers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code subscribe} + {@code unsubscribe} for subscriber classes that were generated first, in the
+ * middle, and last. Run it with different {@code -PsubscriberClassCount}s to
+ * check that the cost of creating a dispatcher doesn't depend on how many subscriber classes there are.
+ * {@code subscribedCount} other subscribers to the same event are subscribed first, to measure the cost of
+ * updating the routes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscribeBenchmark {
+  @Param({"first", "middle", "last"})
+  public String subscriberClass;
+
+  @Param({"0", "100", "1000"})
+  public int subscribedCount;
+
+  private Events events;
+  private Object subscriber;
+
+  @Setup
+  public void setUp() throws Exception {
+    events = new Events();
+
+    Class<?>[] classes = Subscribers.CLASSES;
+    int index;
+    if("first".equals(subscriberClass)) {
+      index = 0;
+    }
+    else if("middle".equals(subscriberClass)) {
+      index = classes.length / 2;
+    }
+    else {
+      index = classes.length - 1;
+    }
+    subscriber = classes[index].getConstructor().newInstance();
+
+    for(int i = 0; i < subscribedCount; i++) {
+      events.subscribe(BenchmarkSubscribers.newSubscriber(RunType.DEFAULT, 1));
+    }
+  }
+
+  @Benchmark
+  public void subscribeAndUnsubscribe() {
+    events.subscribe(subscriber);
+    events.unsubscribe(subscriber);
+  }
+}
@@ -0,0 +1,15 @@
+# Applied to every app that uses the library.
+
+# Each module's generated EventDispatcherFactoryRegistry is only found through its
+# META-INF/services/com.staticbloc.events.EventDispatcherFactoryRegistry entry, which ServiceLoader instantiates
+# by name. The factories and dispatchers themselves are referenced from the registries, so they can be shrunk and
+# obfuscated like any other class.
+-keepnames interface com.staticbloc.events.EventDispatcherFactoryRegistry
+-keep class * implements com.staticbloc.events.EventDispatcherFactoryRegistry {
+    public <init>();
+}
+
+# Loaded by name, so that nothing references android.os when the library runs on a plain JVM.
+-keep class com.staticbloc.events.AndroidMainThread {
+    public <init>();
+}
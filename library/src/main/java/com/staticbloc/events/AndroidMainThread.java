@@ -0,0 +1,25 @@
+package com.staticbloc.events;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * The Android main (UI) thread.
+ * <br>
+ * <br>
+ * This is the only class that uses {@code android.os}, and {@link Events} only loads it when {@code android.os.Looper}
+ * is available, so everything else runs on a plain JVM.
+ */
+public final class AndroidMainThread implements MainThread {
+  private final Handler mainPoster = new Handler(Looper.getMainLooper());
+
+  @Override
+  public void execute(Runnable r) {
+    mainPoster.post(r);
+  }
+
+  @Override
+  public boolean isCurrentThread() {
+    return Looper.myLooper() == Looper.getMainLooper();
+  }
+}
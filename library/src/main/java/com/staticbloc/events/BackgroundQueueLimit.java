@@ -0,0 +1,44 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The capacity and {@link OverflowPolicy} that every {@link SerialLane} of an {@link Events} instance checks when a
+ * delivery is queued, and the number of deliveries that were dropped because of them. It is shared by the lanes
+ * so that changing it applies to lanes that already exist.
+ */
+/*package*/ final class BackgroundQueueLimit {
+  /*package*/ static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private volatile int capacity = UNBOUNDED;
+  private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+  private final AtomicLong droppedDeliveryCount = new AtomicLong();
+
+  public void set(int capacity, OverflowPolicy overflowPolicy) {
+    if(capacity <= 0) {
+      throw new IllegalArgumentException("The queue capacity must be positive");
+    }
+    if(overflowPolicy == null) {
+      throw new IllegalArgumentException("The overflow policy can't be null");
+    }
+    this.overflowPolicy = overflowPolicy;
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public void onDeliveryDropped() {
+    droppedDeliveryCount.incrementAndGet();
+  }
+
+  public long getDroppedDeliveryCount() {
+    return droppedDeliveryCount.get();
+  }
+}
@@ -0,0 +1,67 @@
+package com.staticbloc.events;
+
+/**
+ * A FIFO queue of {@link EventDelivery}s that links them through {@link EventDelivery#next}, so that it doesn't
+ * allocate anything. It isn't thread safe; its owner has to guard it.
+ */
+/*package*/ final class DeliveryQueue {
+  private EventDelivery head;
+  private EventDelivery tail;
+  private int size;
+
+  public void offer(EventDelivery delivery) {
+    if(tail == null) {
+      head = delivery;
+    }
+    else {
+      tail.next = delivery;
+    }
+    tail = delivery;
+    size++;
+  }
+
+  /**
+   * @return the oldest delivery, or {@code null} if the queue is empty
+   */
+  public EventDelivery poll() {
+    EventDelivery delivery = head;
+    if(delivery != null) {
+      head = delivery.next;
+      if(head == null) {
+        tail = null;
+      }
+      delivery.next = null;
+      size--;
+    }
+    return delivery;
+  }
+
+  /**
+   * Removes the oldest delivery whose {@link EventDelivery#getTarget() target} is {@code target}.
+   * @return the removed delivery, or {@code null} if there wasn't one
+   */
+  public EventDelivery removeFirstFor(Object target) {
+    EventDelivery previous = null;
+    for(EventDelivery delivery = head; delivery != null; previous = delivery, delivery = delivery.next) {
+      if(delivery.getTarget() == target) {
+        if(previous == null) {
+          head = delivery.next;
+        }
+        else {
+          previous.next = delivery.next;
+        }
+        if(tail == delivery) {
+          tail = previous;
+        }
+        delivery.next = null;
+        size--;
+        return delivery;
+      }
+    }
+    return null;
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,134 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single {@link Event} on its way to a single {@link EventTarget}, or a task that runs in its place (like a
+ * conflated target that delivers whatever is pending for it).
+ * <br>
+ * <br>
+ * Deliveries are pooled in the spirit of {@code android.os.Message}: get one with {@code obtain}, and it recycles
+ * itself once it has run. A delivery that is dropped instead of run has to be {@link #discard() discarded}.
+ * While it is queued or pooled, {@link #next} links it to the next delivery, so queueing one doesn't
+ * allocate anything either.
+ * <br>
+ * <br>
+ * The pool doesn't take a lock. Deliveries are usually obtained on the posting thread and recycled on another one,
+ * so they are recycled onto a shared lock-free stack, and each thread obtains from its own list, which it refills
+ * by taking everything off of the shared stack at once. Since single deliveries are only ever pushed onto the
+ * shared stack and never popped off of it, a delivery that is recycled again while another thread is pushing
+ * can't corrupt it (which is the ABA problem of a lock-free stack whose nodes are reused).
+ */
+/*package*/ final class EventDelivery implements Runnable {
+  // enough for a burst of posts to a few hundred background or main thread handlers, which are all in flight at once
+  private static final int MAX_POOL_SIZE = 1024;
+
+  // the recycled deliveries that no thread has taken yet
+  private static final AtomicReference<EventDelivery> recycled = new AtomicReference<>();
+  // the deliveries that the current thread took off of recycled, which only it obtains from
+  private static final ThreadLocal<LocalPool> localPool = new ThreadLocal<LocalPool>() {
+    @Override
+    protected LocalPool initialValue() {
+      return new LocalPool();
+    }
+  };
+
+  private static final class LocalPool {
+    private EventDelivery head;
+  }
+
+  private EventTarget target;
+  private Event event;
+  private Runnable task;
+  // when this delivery was obtained, if its target is being monitored
+  private long queuedAt;
+
+  // the next delivery in a DeliveryQueue, or in the pool
+  /*package*/ EventDelivery next;
+  // while this delivery is on top of the recycled stack, how many deliveries are on it
+  private int recycledCount;
+
+  private EventDelivery() {}
+
+  public static EventDelivery obtain(EventTarget target, Event event) {
+    EventDelivery delivery = obtain();
+    delivery.target = target;
+    delivery.event = event;
+    delivery.queuedAt = target.getMonitor() == null ? EventTarget.QUEUED_AT_UNKNOWN : System.nanoTime();
+    return delivery;
+  }
+
+  public static EventDelivery obtain(Runnable task) {
+    EventDelivery delivery = obtain();
+    delivery.task = task;
+    return delivery;
+  }
+
+  private static EventDelivery obtain() {
+    LocalPool pool = localPool.get();
+    EventDelivery delivery = pool.head;
+    if(delivery == null) {
+      delivery = recycled.getAndSet(null);
+      if(delivery == null) {
+        return new EventDelivery();
+      }
+    }
+    pool.head = delivery.next;
+    delivery.next = null;
+    return delivery;
+  }
+
+  /**
+   * @return what this delivery is for; deliveries to the same handler return the same object
+   */
+  public Object getTarget() {
+    return task != null ? task : target;
+  }
+
+  @Override
+  public void run() {
+    try {
+      if(task != null) {
+        task.run();
+      }
+      else {
+        target.dispatch(event, queuedAt);
+      }
+    }
+    finally {
+      recycle();
+    }
+  }
+
+  /**
+   * Drops this delivery without running it.
+   */
+  public void discard() {
+    if(task instanceof EventTarget) {
+      // otherwise the pending event would stay there, and the target would never be scheduled again
+      ((EventTarget) task).discardPendingEvent();
+    }
+    else if(task instanceof ResponseDelivery) {
+      // otherwise the response would wait for it forever
+      ((ResponseDelivery) task).discard();
+    }
+    recycle();
+  }
+
+  private void recycle() {
+    target = null;
+    event = null;
+    task = null;
+
+    EventDelivery top;
+    do {
+      top = recycled.get();
+      int count = top == null ? 0 : top.recycledCount;
+      if(count >= MAX_POOL_SIZE) {
+        return;
+      }
+      next = top;
+      recycledCount = count + 1;
+    } while(!recycled.compareAndSet(top, this));
+  }
+}
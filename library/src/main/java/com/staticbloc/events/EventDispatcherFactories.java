@@ -0,0 +1,87 @@
+package com.staticbloc.events;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the generated {@link EventDispatcherFactory} for each subscriber class.
+ * <br>
+ * <br>
+ * Every module's annotation processing generates factories for its own subscriber classes, and an
+ * {@link EventDispatcherFactoryRegistry} that lists them as a service. The registries that the library's class loader
+ * can see are merged when this is created. A subscriber class from another class loader (like one that loads a
+ * plugin) has its class loader's registries merged in the first time one of them subscribes.
+ */
+/*package*/ final class EventDispatcherFactories implements EventDispatcherFactory {
+  // the factory for classes that don't have one
+  private static final EventDispatcherFactory NO_FACTORY = new EventDispatcherFactory() {
+    @Override
+    public EventDispatcher createDispatcher(Object o) {
+      return null;
+    }
+
+    @Override
+    public EventDispatcher createWeakDispatcher(Object o, ReferenceQueue<Object> referenceQueue) {
+      return null;
+    }
+  };
+
+  private final ConcurrentMap<Class<?>, EventDispatcherFactory> factories = new ConcurrentHashMap<>();
+  // guarded by itself
+  private final Set<ClassLoader> registeredClassLoaders = new HashSet<>();
+
+  public EventDispatcherFactories() {
+    ClassLoader classLoader = EventDispatcherFactories.class.getClassLoader();
+    if(classLoader != null) {
+      registerFactories(classLoader);
+    }
+  }
+
+  /**
+   * @return a dispatcher for {@code o}, or {@code null} if its class doesn't have any {@link EventHandler}s
+   */
+  @Override
+  public EventDispatcher createDispatcher(Object o) {
+    return getFactory(o.getClass()).createDispatcher(o);
+  }
+
+  /**
+   * @return a weak dispatcher for {@code o}, or {@code null} if its class doesn't have any {@link EventHandler}s
+   */
+  @Override
+  public EventDispatcher createWeakDispatcher(Object o, ReferenceQueue<Object> referenceQueue) {
+    return getFactory(o.getClass()).createWeakDispatcher(o, referenceQueue);
+  }
+
+  private EventDispatcherFactory getFactory(Class<?> subscriberClass) {
+    EventDispatcherFactory factory = factories.get(subscriberClass);
+    if(factory == null) {
+      ClassLoader classLoader = subscriberClass.getClassLoader();
+      if(classLoader != null && registerFactories(classLoader)) {
+        factory = factories.get(subscriberClass);
+      }
+    }
+    return factory == null ? NO_FACTORY : factory;
+  }
+
+  /**
+   * Merges the factories of every registry that {@code classLoader} can see.
+   * @return {@code false} if they were already merged
+   */
+  private boolean registerFactories(ClassLoader classLoader) {
+    synchronized(registeredClassLoaders) {
+      if(!registeredClassLoaders.add(classLoader)) {
+        return false;
+      }
+
+      for(EventDispatcherFactoryRegistry registry : ServiceLoader.load(EventDispatcherFactoryRegistry.class, classLoader)) {
+        registry.registerFactories(factories);
+      }
+      return true;
+    }
+  }
+}
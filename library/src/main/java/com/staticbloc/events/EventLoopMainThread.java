@@ -0,0 +1,46 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A single daemon thread that plays the part of the main thread, for running outside of Android.
+ */
+public final class EventLoopMainThread implements MainThread {
+  private final ExecutorService loop;
+  private volatile Thread thread;
+
+  public EventLoopMainThread() {
+    this("events-main");
+  }
+
+  public EventLoopMainThread(final String threadName) {
+    loop = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread newThread = new Thread(r, threadName);
+        newThread.setDaemon(true);
+        thread = newThread;
+        return newThread;
+      }
+    });
+  }
+
+  @Override
+  public void execute(Runnable r) {
+    loop.execute(r);
+  }
+
+  @Override
+  public boolean isCurrentThread() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Stops the thread once everything that was already passed to {@link #execute(Runnable)} has run.
+   */
+  public void shutdown() {
+    loop.shutdown();
+  }
+}
@@ -0,0 +1,222 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The response to an {@link Events#request(Event, Class) request}: the first non-{@code null} value that one of the
+ * event's handlers returns, or {@code null} once every handler that returns a value returned {@code null} (or was
+ * skipped). If a handler throws before there's a response, the request fails with what it threw, and if the first
+ * non-{@code null} value isn't of the requested type, it fails with a {@link ClassCastException}.
+ * <br>
+ * <br>
+ * It can be waited for like any other {@link Future}, but waiting on the main thread for a response from a
+ * {@link RunType#MAIN} handler will never finish, so prefer {@link #setCallback(Callback, RunType)}.
+ */
+public final class EventResponse<R> implements Future<R> {
+  public interface Callback<R> {
+    void onResponse(R response);
+
+    void onFailure(Throwable failure);
+  }
+
+  private final Class<R> responseType;
+  private final MainThread mainThread;
+  private final Executor backgroundExecutor;
+
+  // guarded by this
+  private int pendingResponders;
+  private boolean done;
+  private boolean cancelled;
+  private R response;
+  private Throwable failure;
+  private Callback<? super R> callback;
+  private RunType callbackRunType;
+
+  /*package*/ EventResponse(Class<R> responseType, int responderCount, MainThread mainThread,
+                            Executor backgroundExecutor) {
+    this.responseType = responseType;
+    this.pendingResponders = responderCount;
+    this.mainThread = mainThread;
+    this.backgroundExecutor = backgroundExecutor;
+    this.done = responderCount == 0;
+  }
+
+  /**
+   * Calls {@code callback} on {@code runType} once there's a response (or right away, if there already is one).
+   * If it's already on the right thread, {@code callback} is called right there instead of being posted: always for
+   * {@link RunType#DEFAULT}, when the response comes from the main thread for {@link RunType#MAIN}, and when it
+   * comes from a {@link RunType#BACKGROUND} handler for {@code RunType.BACKGROUND}.
+   * @param runType one of {@code RunType.DEFAULT}, {@code RunType.MAIN}, or {@code RunType.BACKGROUND}
+   */
+  public void setCallback(Callback<? super R> callback, RunType runType) {
+    if(runType != RunType.DEFAULT && runType != RunType.MAIN && runType != RunType.BACKGROUND) {
+      throw new IllegalArgumentException("A response callback can only run on RunType.DEFAULT, RunType.MAIN, or RunType.BACKGROUND");
+    }
+
+    synchronized(this) {
+      if(this.callback != null) {
+        throw new IllegalStateException("A response can only have one callback");
+      }
+      this.callback = callback;
+      this.callbackRunType = runType;
+      if(!done || cancelled) {
+        return;
+      }
+    }
+
+    // it's unknown what kind of thread this is, so a background callback has to be posted
+    deliverCallback(null);
+  }
+
+  /**
+   * Called by each responder once it ran, with what it returned, on the thread it ran on.
+   */
+  /*package*/ void onHandlerResult(Object result, RunType handlerRunType) {
+    if(result != null && !responseType.isInstance(result)) {
+      onHandlerFailure(new ClassCastException("A handler responded with a " + result.getClass().getName() +
+          ", which isn't a " + responseType.getName()), handlerRunType);
+      return;
+    }
+
+    synchronized(this) {
+      pendingResponders--;
+      if(done) {
+        return;
+      }
+      if(result == null && pendingResponders > 0) {
+        return;
+      }
+
+      this.response = responseType.cast(result);
+      done = true;
+      notifyAll();
+      if(callback == null || cancelled) {
+        return;
+      }
+    }
+
+    deliverCallback(handlerRunType);
+  }
+
+  /*package*/ void onHandlerFailure(Throwable failure, RunType handlerRunType) {
+    synchronized(this) {
+      pendingResponders--;
+      if(done) {
+        return;
+      }
+
+      this.failure = failure;
+      done = true;
+      notifyAll();
+      if(callback == null || cancelled) {
+        return;
+      }
+    }
+
+    deliverCallback(handlerRunType);
+  }
+
+  /**
+   * @param currentRunType the {@code RunType} of the handler that completed this, or {@code null} if it isn't known
+   */
+  private void deliverCallback(RunType currentRunType) {
+    Runnable callbackDelivery = new Runnable() {
+      @Override
+      public void run() {
+        Callback<? super R> callback;
+        R response;
+        Throwable failure;
+        synchronized(EventResponse.this) {
+          callback = EventResponse.this.callback;
+          response = EventResponse.this.response;
+          failure = EventResponse.this.failure;
+        }
+
+        if(failure != null) {
+          callback.onFailure(failure);
+        }
+        else {
+          callback.onResponse(response);
+        }
+      }
+    };
+
+    RunType callbackRunType;
+    synchronized(this) {
+      callbackRunType = this.callbackRunType;
+    }
+
+    if(callbackRunType == RunType.MAIN && !mainThread.isCurrentThread()) {
+      mainThread.execute(callbackDelivery);
+    }
+    else if(callbackRunType == RunType.BACKGROUND && currentRunType != RunType.BACKGROUND) {
+      backgroundExecutor.execute(callbackDelivery);
+    }
+    else {
+      callbackDelivery.run();
+    }
+  }
+
+  /**
+   * Drops the response, so that the callback isn't called and {@link #get()} throws a {@link CancellationException}.
+   * The handlers are still called.
+   */
+  @Override
+  public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+    if(done) {
+      return false;
+    }
+    cancelled = true;
+    done = true;
+    notifyAll();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public synchronized boolean isDone() {
+    return done;
+  }
+
+  @Override
+  public synchronized R get() throws InterruptedException, ExecutionException {
+    while(!done) {
+      wait();
+    }
+    return getDoneResponse();
+  }
+
+  @Override
+  public synchronized R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    long remaining = unit.toNanos(timeout);
+    long deadline = System.nanoTime() + remaining;
+    while(!done) {
+      if(remaining <= 0) {
+        throw new TimeoutException();
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      remaining = deadline - System.nanoTime();
+    }
+    return getDoneResponse();
+  }
+
+  // must hold the monitor
+  private R getDoneResponse() throws ExecutionException {
+    if(cancelled) {
+      throw new CancellationException();
+    }
+    if(failure != null) {
+      throw new ExecutionException(failure);
+    }
+    return response;
+  }
+}
@@ -0,0 +1,99 @@
+package com.staticbloc.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The handlers for a single {@link Event} class, already split up by the {@link RunType}
+ * they should be invoked on. Built when a subscription changes so that {@code post} only has to walk arrays.
+ * Conflated handlers are kept apart from the rest since they are scheduled individually.
+ */
+/*package*/ final class EventRoute {
+  private static final EventTarget[] NO_TARGETS = new EventTarget[0];
+
+  public static final EventRoute EMPTY = new EventRoute(NO_TARGETS, NO_TARGETS, NO_TARGETS, NO_TARGETS,
+      NO_TARGETS, NO_TARGETS, NO_TARGETS, NO_TARGETS, NO_TARGETS, 0);
+
+  public final EventTarget[] backgroundTargets;
+  public final EventTarget[] conflatedBackgroundTargets;
+  public final EventTarget[] mainThreadTargets;
+  public final EventTarget[] conflatedMainThreadTargets;
+  public final EventTarget[] executorTargets;
+  public final EventTarget[] conflatedExecutorTargets;
+  public final EventTarget[] postingThreadTargets;
+  // the main thread targets (conflated or not) and the posting thread targets together, in priority order, for
+  // posts on the main thread, where all of them are called right away one after the other
+  public final EventTarget[] mainAndPostingThreadTargets;
+  // the number of handlers across all of the arrays
+  public final int targetCount;
+
+  // every target, in priority order, for requests, which deliver to the ones that return a value differently
+  public final EventTarget[] targets;
+  // the number of targets whose handlers return a value
+  public final int respondingTargetCount;
+
+  private EventRoute(EventTarget[] backgroundTargets, EventTarget[] conflatedBackgroundTargets,
+                     EventTarget[] mainThreadTargets, EventTarget[] conflatedMainThreadTargets,
+                     EventTarget[] executorTargets, EventTarget[] conflatedExecutorTargets,
+                     EventTarget[] postingThreadTargets, EventTarget[] mainAndPostingThreadTargets,
+                     EventTarget[] targets, int respondingTargetCount) {
+    this.backgroundTargets = backgroundTargets;
+    this.conflatedBackgroundTargets = conflatedBackgroundTargets;
+    this.mainThreadTargets = mainThreadTargets;
+    this.conflatedMainThreadTargets = conflatedMainThreadTargets;
+    this.executorTargets = executorTargets;
+    this.conflatedExecutorTargets = conflatedExecutorTargets;
+    this.postingThreadTargets = postingThreadTargets;
+    this.mainAndPostingThreadTargets = mainAndPostingThreadTargets;
+    this.targetCount = backgroundTargets.length + conflatedBackgroundTargets.length +
+        mainThreadTargets.length + conflatedMainThreadTargets.length +
+        executorTargets.length + conflatedExecutorTargets.length + postingThreadTargets.length;
+    this.targets = targets;
+    this.respondingTargetCount = respondingTargetCount;
+  }
+
+  /**
+   * @param targets in priority order
+   */
+  public static EventRoute create(List<EventTarget> targets) {
+    List<EventTarget> backgroundTargets = new ArrayList<>();
+    List<EventTarget> conflatedBackgroundTargets = new ArrayList<>();
+    List<EventTarget> mainThreadTargets = new ArrayList<>();
+    List<EventTarget> conflatedMainThreadTargets = new ArrayList<>();
+    List<EventTarget> executorTargets = new ArrayList<>();
+    List<EventTarget> conflatedExecutorTargets = new ArrayList<>();
+    List<EventTarget> postingThreadTargets = new ArrayList<>();
+    List<EventTarget> mainAndPostingThreadTargets = new ArrayList<>();
+    int respondingTargetCount = 0;
+
+    for(EventTarget target : targets) {
+      if(target.responds) {
+        respondingTargetCount++;
+      }
+
+      if(target.runType == RunType.BACKGROUND) {
+        (target.conflated ? conflatedBackgroundTargets : backgroundTargets).add(target);
+      }
+      else if(target.runType == RunType.MAIN) {
+        (target.conflated ? conflatedMainThreadTargets : mainThreadTargets).add(target);
+        mainAndPostingThreadTargets.add(target);
+      }
+      else if(target.runType == RunType.EXECUTOR || target.runType == RunType.VIRTUAL_THREAD) {
+        (target.conflated ? conflatedExecutorTargets : executorTargets).add(target);
+      }
+      else if(target.runType == RunType.DEFAULT) {
+        postingThreadTargets.add(target);
+        mainAndPostingThreadTargets.add(target);
+      }
+    }
+
+    return new EventRoute(toArray(backgroundTargets), toArray(conflatedBackgroundTargets),
+        toArray(mainThreadTargets), toArray(conflatedMainThreadTargets),
+        toArray(executorTargets), toArray(conflatedExecutorTargets), toArray(postingThreadTargets),
+        toArray(mainAndPostingThreadTargets), toArray(targets), respondingTargetCount);
+  }
+
+  private static EventTarget[] toArray(List<EventTarget> targets) {
+    return targets.toArray(new EventTarget[targets.size()]);
+  }
+}
@@ -0,0 +1,262 @@
+package com.staticbloc.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable snapshot of the {@link Subscription}s for each {@link Event} class.
+ * <br>
+ * <br>
+ * {@link Events} publishes a new snapshot every time a subscriber or listener is added or removed,
+ * so {@code post} can read the current snapshot without locking and without copying anything.
+ * The {@link EventRoute}s are built, with their targets in priority order, when the snapshot is: a new snapshot
+ * rebuilds the routes that the change affects (and the ones for the subscriber's own event classes), and keeps the
+ * rest, so {@code post} only looks its route up. The only route that is built on a post is the one for a class that
+ * was never posted or subscribed to before, which is resolved against the class's supertypes once, and kept in every
+ * snapshot after that.
+ */
+/*package*/ final class EventRoutes {
+  private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+  /*package*/ static final EventRoutes EMPTY = new EventRoutes(
+      Collections.<Class<? extends Event>, Subscription[]>emptyMap(),
+      NO_SUBSCRIPTIONS);
+
+  // the subscriptions that declared an @EventHandler for each event class, and the listeners, each in the priority
+  // order of their handler for it, so that the routes are only merged from them
+  private final Map<Class<? extends Event>, Subscription[]> subscribers;
+  private final Subscription[] listeners;
+
+  // the routes for every class that was subscribed to or posted so far
+  private final ConcurrentMap<Class<? extends Event>, EventRoute> routes;
+
+  private EventRoutes(Map<Class<? extends Event>, Subscription[]> subscribers,
+                      Subscription[] listeners) {
+    this.subscribers = subscribers;
+    this.listeners = listeners;
+    this.routes = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return the route for {@code eventClass}, which will have no targets if nothing subscribed to it; only built here
+   * the first time {@code eventClass} is posted, if nothing subscribed to it yet
+   */
+  public EventRoute get(Class<? extends Event> eventClass) {
+    // nothing to build or keep, and EMPTY is shared by every Events
+    if(subscribers.isEmpty() && listeners.length == 0) {
+      return EventRoute.EMPTY;
+    }
+
+    EventRoute route = routes.get(eventClass);
+    if(route == null) {
+      route = createRoute(eventClass);
+      EventRoute existing = routes.putIfAbsent(eventClass, route);
+      if(existing != null) {
+        route = existing;
+      }
+    }
+    return route;
+  }
+
+  /**
+   * @return the listener subscription whose dispatcher is equal to {@code listener}, or {@code null} if there isn't one
+   */
+  public Subscription getListener(EventDispatcher listener) {
+    int index = indexOfEqual(listeners, listener);
+    return index < 0 ? null : listeners[index];
+  }
+
+  public EventRoutes withSubscriber(Subscription subscription) {
+    Map<Class<? extends Event>, Subscription[]> newSubscribers = new HashMap<>(subscribers);
+    for(Class<? extends Event> eventClass : subscription.dispatcher.getDispatchableEvents()) {
+      Subscription[] subscriptions = newSubscribers.get(eventClass);
+      newSubscribers.put(eventClass,
+          insertByPriority(subscriptions == null ? NO_SUBSCRIPTIONS : subscriptions, subscription, eventClass));
+    }
+    return new EventRoutes(newSubscribers, listeners).withRoutesFrom(this, subscription);
+  }
+
+  public EventRoutes withoutSubscriber(Subscription subscription) {
+    Map<Class<? extends Event>, Subscription[]> newSubscribers = new HashMap<>(subscribers);
+    for(Class<? extends Event> eventClass : subscription.dispatcher.getDispatchableEvents()) {
+      Subscription[] subscriptions = newSubscribers.get(eventClass);
+      if(subscriptions != null) {
+        subscriptions = remove(subscriptions, subscription);
+        if(subscriptions.length == 0) {
+          newSubscribers.remove(eventClass);
+        }
+        else {
+          newSubscribers.put(eventClass, subscriptions);
+        }
+      }
+    }
+    return new EventRoutes(newSubscribers, listeners).withRoutesFrom(this, subscription);
+  }
+
+  // listeners are in every route, so these rebuild all of them
+  public EventRoutes withListener(Subscription listener) {
+    return new EventRoutes(subscribers, insertByPriority(listeners, listener, null)).withRoutesFrom(this, null);
+  }
+
+  public EventRoutes withoutListener(Subscription listener) {
+    return new EventRoutes(subscribers, remove(listeners, listener)).withRoutesFrom(this, null);
+  }
+
+  /**
+   * Fills this new snapshot's routes: the ones from {@code previous} for classes that can't be delivered as one of
+   * {@code changed}'s dispatchable events are kept, and the rest are rebuilt, along with the routes for
+   * {@code changed}'s own event classes.
+   * @param changed the subscription that was added or removed, or {@code null} to rebuild every route
+   * @return this
+   */
+  private EventRoutes withRoutesFrom(EventRoutes previous, Subscription changed) {
+    Set<Class<? extends Event>> changedEvents = changed == null ? null : changed.dispatcher.getDispatchableEvents();
+    for(Map.Entry<Class<? extends Event>, EventRoute> route : previous.routes.entrySet()) {
+      Class<? extends Event> eventClass = route.getKey();
+      if(changedEvents == null || containsAny(changedEvents, EventTypes.getTypeClosure(eventClass))) {
+        routes.put(eventClass, createRoute(eventClass));
+      }
+      else {
+        routes.put(eventClass, route.getValue());
+      }
+    }
+
+    if(changedEvents != null) {
+      for(Class<? extends Event> eventClass : changedEvents) {
+        if(!routes.containsKey(eventClass)) {
+          routes.put(eventClass, createRoute(eventClass));
+        }
+      }
+    }
+    return this;
+  }
+
+  private static boolean containsAny(Set<Class<? extends Event>> eventClasses, List<Class<? extends Event>> types) {
+    for(Class<? extends Event> type : types) {
+      if(eventClasses.contains(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private EventRoute createRoute(Class<? extends Event> eventClass) {
+    // the subscriptions for each of the class's types are already in priority order, so they only have to be merged
+    List<Class<? extends Event>> eventTypes = EventTypes.getTypeClosure(eventClass);
+    List<List<EventTarget>> runs = new ArrayList<>(eventTypes.size() + 1);
+    int targetCount = 0;
+
+    for(Class<? extends Event> eventType : eventTypes) {
+      Subscription[] eventTypeSubscriptions = subscribers.get(eventType);
+      if(eventTypeSubscriptions == null) {
+        continue;
+      }
+
+      List<EventTarget> run = new ArrayList<>(eventTypeSubscriptions.length);
+      for(Subscription subscription : eventTypeSubscriptions) {
+        // a subscriber with handlers for more than one of the supertypes still only gets the event once, on the
+        // handler that it's resolved to, which is the one whose priority it was sorted by
+        int eventId = EventTypes.getHandledEventId(subscription.dispatcher, eventClass);
+        if(subscription.dispatcher.getEventId(eventType) == eventId) {
+          run.add(new EventTarget(subscription, eventId, subscription.dispatcher.getRunType(eventId)));
+        }
+      }
+      runs.add(run);
+      targetCount += run.size();
+    }
+
+    // listeners get every event, whether or not anything subscribed to it
+    if(targetCount == 0 && listeners.length == 0) {
+      return EventRoute.EMPTY;
+    }
+
+    List<EventTarget> listenerRun = new ArrayList<>(listeners.length);
+    for(Subscription listener : listeners) {
+      listenerRun.add(new EventTarget(listener, 0, listener.dispatcher.getRunType(0)));
+    }
+    runs.add(listenerRun);
+    targetCount += listenerRun.size();
+
+    return EventRoute.create(mergeByPriority(runs, targetCount));
+  }
+
+  /**
+   * Merges runs that are each in priority order, highest first. Targets with the same priority stay in the order of
+   * their runs, and then in their order within the run, so they stay in subscription order.
+   */
+  private static List<EventTarget> mergeByPriority(List<List<EventTarget>> runs, int targetCount) {
+    List<EventTarget> merged = new ArrayList<>(targetCount);
+    int[] heads = new int[runs.size()];
+    while(merged.size() < targetCount) {
+      int next = -1;
+      for(int i = 0; i < heads.length; i++) {
+        List<EventTarget> run = runs.get(i);
+        if(heads[i] < run.size() &&
+            (next < 0 || run.get(heads[i]).priority > runs.get(next).get(heads[next]).priority)) {
+          next = i;
+        }
+      }
+      merged.add(runs.get(next).get(heads[next]++));
+    }
+    return merged;
+  }
+
+  /**
+   * @return {@code subscriptions} with {@code subscription} after the ones whose handler for {@code eventClass} has
+   * the same or a higher priority, and before the rest
+   */
+  private static Subscription[] insertByPriority(Subscription[] subscriptions, Subscription subscription,
+                                                 Class<? extends Event> eventClass) {
+    int priority = getPriority(subscription, eventClass);
+    int index = subscriptions.length;
+    while(index > 0 && getPriority(subscriptions[index - 1], eventClass) < priority) {
+      index--;
+    }
+
+    Subscription[] inserted = new Subscription[subscriptions.length + 1];
+    System.arraycopy(subscriptions, 0, inserted, 0, index);
+    inserted[index] = subscription;
+    System.arraycopy(subscriptions, index, inserted, index + 1, subscriptions.length - index);
+    return inserted;
+  }
+
+  /**
+   * @param eventClass one of {@code subscription}'s dispatchable events, or {@code null} for a listener
+   */
+  private static int getPriority(Subscription subscription, Class<? extends Event> eventClass) {
+    return subscription.dispatcher.getPriority(eventClass == null ? 0 : subscription.dispatcher.getEventId(eventClass));
+  }
+
+  private static Subscription[] remove(Subscription[] subscriptions, Subscription subscription) {
+    int index = -1;
+    for(int i = 0; i < subscriptions.length; i++) {
+      if(subscriptions[i] == subscription) {
+        index = i;
+        break;
+      }
+    }
+    if(index < 0) {
+      return subscriptions;
+    }
+
+    Subscription[] removed = new Subscription[subscriptions.length - 1];
+    System.arraycopy(subscriptions, 0, removed, 0, index);
+    System.arraycopy(subscriptions, index + 1, removed, index, subscriptions.length - index - 1);
+    return removed;
+  }
+
+  private static int indexOfEqual(Subscription[] subscriptions, EventDispatcher dispatcher) {
+    for(int i = 0; i < subscriptions.length; i++) {
+      if(subscriptions[i].dispatcher.equals(dispatcher)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,81 @@
+package com.staticbloc.events;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Reactive Streams {@link Publisher} of the events of a single class (and its subclasses) that are posted to an
+ * {@link Events} instance. Get one from {@link Events#stream(Class, int, OverflowPolicy)}.
+ * <br>
+ * <br>
+ * Each {@link Subscriber} is routed like a subscriber with a single {@link RunType#DEFAULT} handler for the class, for
+ * as long as its subscription isn't cancelled, so a stream that nobody is subscribed to costs nothing. A posted event
+ * is buffered for each subscriber, and passed to its {@code onNext} as soon as it has requested one, on the posting
+ * thread, or on the thread that requests it if it had to wait. When a subscriber's buffer is full, the
+ * stream's {@link OverflowPolicy} decides which event is dropped. The stream never completes.
+ */
+public final class EventStream<E extends Event> implements Publisher<E> {
+  private final Events events;
+  private final Class<E> eventClass;
+  private final int bufferCapacity;
+  private final OverflowPolicy overflowPolicy;
+  private final AtomicLong droppedEventCount = new AtomicLong();
+
+  /*package*/ EventStream(Events events, Class<E> eventClass, int bufferCapacity, OverflowPolicy overflowPolicy) {
+    if(bufferCapacity <= 0) {
+      throw new IllegalArgumentException("The buffer capacity must be positive");
+    }
+    if(overflowPolicy == null) {
+      throw new IllegalArgumentException("The overflow policy can't be null");
+    }
+    if(overflowPolicy == OverflowPolicy.BLOCK) {
+      // the subscriber might only be able to request more on the thread that would be blocked
+      throw new IllegalArgumentException("A stream can't use OverflowPolicy.BLOCK");
+    }
+
+    this.events = events;
+    this.eventClass = eventClass;
+    this.bufferCapacity = bufferCapacity;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super E> subscriber) {
+    if(subscriber == null) {
+      throw new NullPointerException("The subscriber can't be null");
+    }
+
+    StreamSubscription<E> subscription = new StreamSubscription<>(this, subscriber);
+    subscriber.onSubscribe(subscription);
+    subscription.start();
+  }
+
+  /**
+   * @return how many events were dropped, across all of this stream's subscribers, because a buffer was full
+   */
+  public long getDroppedEventCount() {
+    return droppedEventCount.get();
+  }
+
+  /*package*/ Events getEvents() {
+    return events;
+  }
+
+  /*package*/ Class<E> getEventClass() {
+    return eventClass;
+  }
+
+  /*package*/ int getBufferCapacity() {
+    return bufferCapacity;
+  }
+
+  /*package*/ OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /*package*/ void onEventDropped() {
+    droppedEventCount.incrementAndGet();
+  }
+}
@@ -0,0 +1,179 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A single handler that a posted {@link Event} resolved to: the {@link Subscription}, the id of the handler
+ * within its dispatcher, and the {@link RunType} (and for {@link RunType#EXECUTOR} and
+ * {@link RunType#VIRTUAL_THREAD}, the {@code Executor}) that the handler should be invoked on.
+ * <br>
+ * <br>
+ * A conflated target is scheduled on its own (as a {@code Runnable}) instead of with the rest of its
+ * {@code RunType}, and delivers whatever event is pending for it when it runs.
+ */
+/*package*/ final class EventTarget implements Runnable {
+  // queuedAt values for events that weren't queued, and for ones that were queued at an unknown time
+  public static final long NOT_QUEUED = Long.MIN_VALUE;
+  public static final long QUEUED_AT_UNKNOWN = Long.MIN_VALUE + 1;
+
+  public final Subscription subscription;
+  public final EventDispatcher dispatcher;
+  public final int eventId;
+  public final RunType runType;
+  public final boolean conflated;
+  public final Executor executor;
+  public final int priority;
+  // whether the handler returns a value that can be the response to a request
+  public final boolean responds;
+  // the event type that the handler takes, for the monitor
+  public final Class<? extends Event> handledEventClass;
+
+  public EventTarget(Subscription subscription, int eventId, RunType runType) {
+    this.subscription = subscription;
+    this.dispatcher = subscription.dispatcher;
+    this.eventId = eventId;
+    this.runType = runType;
+    this.conflated = runType != RunType.DEFAULT && dispatcher.isConflated(eventId);
+    this.executor = subscription.getHandlerExecutor(eventId);
+    this.priority = dispatcher.getPriority(eventId);
+    this.responds = dispatcher.hasResult(eventId);
+    this.handledEventClass = getHandledEventClass(dispatcher, eventId);
+  }
+
+  private static Class<? extends Event> getHandledEventClass(EventDispatcher dispatcher, int eventId) {
+    int id = 0;
+    for(Class<? extends Event> dispatchableEvent : dispatcher.getDispatchableEvents()) {
+      if(id++ == eventId) {
+        return dispatchableEvent;
+      }
+    }
+    return Event.class;
+  }
+
+  /**
+   * @return the current monitor, or {@code null} if this target isn't being monitored
+   */
+  public EventsMonitor getMonitor() {
+    Instrumentation instrumentation = subscription.instrumentation;
+    return instrumentation == null ? null : instrumentation.getMonitor();
+  }
+
+  /**
+   * Delivers {@code event} to this target, unless it is a {@link ConsumableEvent} that was already consumed.
+   * Since every delivery goes through here, a consumed event doesn't reach any handler that didn't already start
+   * handling it, including the ones it is still queued for.
+   */
+  public void dispatch(Event event) {
+    dispatch(event, NOT_QUEUED);
+  }
+
+  /**
+   * Like {@link #dispatch(Event)}, for an event that was queued for this target at {@code queuedAt} (a
+   * {@link System#nanoTime()}), or {@link #QUEUED_AT_UNKNOWN}.
+   */
+  public void dispatch(Event event, long queuedAt) {
+    if(event instanceof ConsumableEvent && ((ConsumableEvent) event).isConsumed()) {
+      return;
+    }
+
+    EventsMonitor monitor = getMonitor();
+    if(monitor == null) {
+      dispatcher.dispatchEvent(eventId, event);
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      dispatcher.dispatchEvent(eventId, event);
+    }
+    finally {
+      onHandlerCalled(monitor, queuedAt, start);
+    }
+  }
+
+  /**
+   * Like {@link #dispatch(Event, long)}, for a target that {@link #responds}.
+   * @return what the handler returned, or {@code null} if it was skipped
+   */
+  public Object dispatchForResult(Event event, long queuedAt) {
+    if(event instanceof ConsumableEvent && ((ConsumableEvent) event).isConsumed()) {
+      return null;
+    }
+
+    EventsMonitor monitor = getMonitor();
+    if(monitor == null) {
+      return dispatcher.dispatchEventForResult(eventId, event);
+    }
+
+    long start = System.nanoTime();
+    try {
+      return dispatcher.dispatchEventForResult(eventId, event);
+    }
+    finally {
+      onHandlerCalled(monitor, queuedAt, start);
+    }
+  }
+
+  private void onHandlerCalled(EventsMonitor monitor, long queuedAt, long start) {
+    long end = System.nanoTime();
+    long queuedNanos = queuedAt == NOT_QUEUED ? 0 : (queuedAt == QUEUED_AT_UNKNOWN ? -1 : start - queuedAt);
+    monitor.onHandlerCalled(subscription.subscriberClass, handledEventClass, runType, queuedNanos, end - start);
+  }
+
+  /**
+   * Makes {@code event} the pending event for this conflated target.
+   * @return {@code true} if this target isn't scheduled to deliver its pending event yet, in which case it has to be
+   * scheduled (and then either run or {@link #discardPendingEvent() discarded})
+   */
+  public boolean offerPendingEvent(Event event) {
+    dispatcher.replacePendingEvent(eventId, event);
+    return dispatcher.startDrain(eventId);
+  }
+
+  /**
+   * Delivers {@code event} to this conflated target right away, dropping any older pending event.
+   */
+  public void dispatchNow(Event event) {
+    dispatcher.takePendingEvent(eventId);
+    dispatch(event);
+  }
+
+  /**
+   * Drops the pending event for this conflated target, if there is one, instead of running this target after it
+   * was scheduled.
+   */
+  public void discardPendingEvent() {
+    dispatcher.takePendingEvent(eventId);
+    dispatcher.finishDrain(eventId);
+  }
+
+  /**
+   * Delivers the pending events until there aren't any. Only a single run is scheduled at a time, and an event that
+   * is offered while it is running is delivered by it, so even on an {@code Executor} with many threads the handler
+   * never runs concurrently with itself, and never gets an older event after a newer one.
+   */
+  @Override
+  public void run() {
+    for(;;) {
+      Event event = dispatcher.takePendingEvent(eventId);
+      if(event == null) {
+        dispatcher.finishDrain(eventId);
+        // an event that was offered before the claim was released wasn't scheduled by its poster
+        if(!dispatcher.hasPendingEvent(eventId) || !dispatcher.startDrain(eventId)) {
+          return;
+        }
+        continue;
+      }
+
+      try {
+        // the pending event may have replaced others, so there's no single time that it was queued at
+        dispatch(event, QUEUED_AT_UNKNOWN);
+      }
+      catch(RuntimeException | Error e) {
+        // the next event that is offered schedules this target again
+        dispatcher.finishDrain(eventId);
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.staticbloc.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of every {@link Event} type that an event class can be delivered as (itself, its superclasses,
+ * and its interfaces). Class hierarchies never change at runtime, so each class is only walked once per process.
+ */
+/*package*/ final class EventTypes {
+  private static final ConcurrentMap<Class<?>, List<Class<? extends Event>>> typeClosures = new ConcurrentHashMap<>();
+
+  private EventTypes() {}
+
+  /**
+   * @return {@code eventClass} followed by all of its {@code Event} supertypes, nearest first
+   */
+  public static List<Class<? extends Event>> getTypeClosure(Class<? extends Event> eventClass) {
+    List<Class<? extends Event>> typeClosure = typeClosures.get(eventClass);
+    if(typeClosure == null) {
+      typeClosure = createTypeClosure(eventClass);
+      List<Class<? extends Event>> existing = typeClosures.putIfAbsent(eventClass, typeClosure);
+      if(existing != null) {
+        typeClosure = existing;
+      }
+    }
+    return typeClosure;
+  }
+
+  /**
+   * Finds the handler that {@code dispatcher} will handle {@code eventClass} with, which is the first of its
+   * dispatchable events that {@code eventClass} is assignable to.
+   * @return the handler's event id, or {@code -1} if {@code dispatcher} has no handler for {@code eventClass}
+   */
+  public static int getHandledEventId(EventDispatcher dispatcher, Class<? extends Event> eventClass) {
+    int eventId = 0;
+    for(Class<? extends Event> dispatchableEvent : dispatcher.getDispatchableEvents()) {
+      if(dispatchableEvent.isAssignableFrom(eventClass)) {
+        return eventId;
+      }
+      eventId++;
+    }
+    return -1;
+  }
+
+  private static List<Class<? extends Event>> createTypeClosure(Class<? extends Event> eventClass) {
+    List<Class<?>> types = new ArrayList<>();
+    types.add(eventClass);
+
+    // breadth first, so that closer supertypes come before farther ones
+    for(int i = 0; i < types.size(); i++) {
+      Class<?> type = types.get(i);
+
+      Class<?> superclass = type.getSuperclass();
+      if(superclass != null && Event.class.isAssignableFrom(superclass) && !types.contains(superclass)) {
+        types.add(superclass);
+      }
+
+      for(Class<?> iface : type.getInterfaces()) {
+        if(Event.class.isAssignableFrom(iface) && !types.contains(iface)) {
+          types.add(iface);
+        }
+      }
+    }
+
+    List<Class<? extends Event>> typeClosure = new ArrayList<>(types.size());
+    for(Class<?> type : types) {
+      typeClosure.add(type.asSubclass(Event.class));
+    }
+    return Collections.unmodifiableList(typeClosure);
+  }
+}
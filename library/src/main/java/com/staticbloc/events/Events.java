@@ -1,32 +1,24 @@
 package com.staticbloc.events;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
-
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class Events {
-  private static EventDispatcherFactory eventDispatcherFactory = getEventDispatcherFactory();
-
-  private static EventDispatcherFactory getEventDispatcherFactory() {
-    try {
-      return (EventDispatcherFactory) Class.forName("com.staticbloc.events.EventDispatcherFactoryImpl").getConstructor().newInstance();
-    }
-    catch (Exception e) {
-      Log.wtf("Events", "Couldn't find EventDispatcherFactoryImpl. Please email info@staticbloc.com for assistance", e);
-      throw new RuntimeException(e);
-    }
-  }
+  private static final EventDispatcherFactory eventDispatcherFactory = new EventDispatcherFactories();
 
   /**
    * The default instance
@@ -35,22 +27,66 @@ public class Events {
     public static final Events instance = new Events();
   }
 
-  private static final Handler mainPoster = new Handler(Looper.getMainLooper());
-  private static final ExecutorService defaultEventDispatcher = Executors.newSingleThreadExecutor();
+  /**
+   * The default {@link MainThread}, created the first time it's used
+   */
+  private static class DefaultMainThread {
+    public static final MainThread instance = createDefaultMainThread();
+  }
+
+  private static MainThread createDefaultMainThread() {
+    try {
+      Class.forName("android.os.Looper");
+    }
+    catch (ClassNotFoundException e) {
+      return new EventLoopMainThread();
+    }
+
+    // loaded by name so that nothing references android.os when running on a plain JVM
+    try {
+      return (MainThread) Class.forName("com.staticbloc.events.AndroidMainThread").getConstructor().newInstance();
+    }
+    catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static final ExecutorService defaultEventDispatcher = newBackgroundExecutor();
 
-  private final Map<Object, EventDispatcher> objectForwardMap;
-  private final Map<Class<? extends Event>, Set<EventDispatcher>> eventForwardMap;
+  // only accessed while holding this instance's monitor
+  private final Map<Object, Subscription> objectForwardMap;
+  // the weakly held subscribers, keyed by their identity hash codes since they can't be keys themselves, and the hash
+  // code for each of their dispatchers' references, for when they're collected; also only accessed while holding the
+  // monitor
+  private final Map<Integer, List<Subscription>> weakSubscriptions;
+  private final Map<Reference<?>, Integer> weakSubscriptionHashes;
+  // the listeners that subscribed to a single event class; also only accessed while holding the monitor
+  private final Map<EventDispatcher, Subscription> typedListeners;
+  // where the references of weakly held subscribers end up once they're collected
+  private final ReferenceQueue<Object> collectedSubscribers;
 
-  private final Set<OnEventListenerWrapper> onEventListeners;
-  private final Object onEventListenersLock = new Object();
+  // copy-on-write snapshot that is swapped (while holding the monitor) whenever a subscription changes,
+  // so that post can read it without locking
+  private volatile EventRoutes eventRoutes;
 
   private final ExecutorService eventExecutor;
+  // replaces the subscribers' background lanes if it isn't null
+  private final RingBufferEngine ringBufferEngine;
+  private final MainThread mainThread;
+  private final MainThreadDeliveryScheduler mainThreadDeliveries;
+  private final BackgroundQueueLimit backgroundQueueLimit;
+  private final Instrumentation instrumentation;
+
+  private final StickyEvents stickyEvents;
+
+  // the executors for RunType.EXECUTOR handlers, by name
+  private final ConcurrentMap<String, Executor> namedExecutors;
 
   private static class OnEventListenerWrapper extends EventDispatcher {
-    private OnEventListener onEventListener;
+    private OnEventListener<? super Event> onEventListener;
     private RunType runType;
 
-    public OnEventListenerWrapper(OnEventListener onEventListener, RunType runType) {
+    public OnEventListenerWrapper(OnEventListener<? super Event> onEventListener, RunType runType) {
       this.onEventListener = onEventListener;
       this.runType = runType;
     }
@@ -81,19 +117,93 @@ public class Events {
       onEventListener.onEvent(event);
     }
 
+    @Override
+    public void dispatchEvent(int eventId, Event event) {
+      onEventListener.onEvent(event);
+    }
+
     @Override
     public Set<Class<? extends Event>> getDispatchableEvents() {
       return Collections.emptySet();
     }
 
     @Override
-    public RunType getRunTypeForEvent(Class<? extends Event> eventClass) {
+    public int getEventId(Class<? extends Event> eventClass) {
+      return 0;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return runType;
+    }
+  }
+
+  /**
+   * Wraps an {@link OnEventListener} that was subscribed to a single event class, so that it can be routed like
+   * a subscriber with a single handler for that class.
+   */
+  private static class TypedOnEventListenerWrapper<E extends Event> extends EventDispatcher {
+    private final Class<E> eventClass;
+    private final Set<Class<? extends Event>> dispatchableEvents;
+    private final OnEventListener<? super E> onEventListener;
+    private final RunType runType;
+
+    public TypedOnEventListenerWrapper(Class<E> eventClass, OnEventListener<? super E> onEventListener, RunType runType) {
+      this.eventClass = eventClass;
+      this.dispatchableEvents = Collections.<Class<? extends Event>>singleton(eventClass);
+      this.onEventListener = onEventListener;
+      this.runType = runType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      TypedOnEventListenerWrapper<?> that = (TypedOnEventListenerWrapper<?>) o;
+
+      return eventClass == that.eventClass && onEventListener == that.onEventListener && runType == that.runType;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = eventClass.hashCode();
+      result = 31 * result + System.identityHashCode(onEventListener);
+      result = 31 * result + runType.hashCode();
+      return result;
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {
+      onEventListener.onEvent(eventClass.cast(event));
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return dispatchableEvents;
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return this.eventClass == eventClass ? 0 : -1;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
       return runType;
     }
   }
 
-  public interface OnEventListener {
-    void onEvent(Event event);
+  public interface OnEventListener<E extends Event> {
+    void onEvent(E event);
+  }
+
+  private static ExecutorService newBackgroundExecutor() {
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
   }
 
   /**
@@ -105,25 +215,70 @@ public class Events {
 
   /**
    * Create a new {@code Events} instance. If {@code useDefaultExecutor} is {@code true} then the
-   * default {@link java.util.concurrent.ExecutorService} will be used. Otherwise,
-   * {@link java.util.concurrent.Executors#newSingleThreadExecutor()} will be used.
+   * default {@link java.util.concurrent.ExecutorService} will be used. Otherwise, a new
+   * {@link java.util.concurrent.Executors#newFixedThreadPool(int)} with a thread per core will be used.
    * @param useDefaultExecutor whether or not to use the default {@code ExecutorService}
    */
   public Events(boolean useDefaultExecutor) {
-    this((useDefaultExecutor ? defaultEventDispatcher : Executors.newSingleThreadExecutor()));
+    this((useDefaultExecutor ? defaultEventDispatcher : newBackgroundExecutor()));
   }
 
   /**
-   * Create a new {@code Events} instance.
+   * Create a new {@code Events} instance. {@link RunType#BACKGROUND} handlers for different subscribers run in
+   * parallel on {@code eventExecutor} (as many at a time as it has threads), while each subscriber's handlers
+   * are always run one at a time, in the order their events were posted.
    * @param eventExecutor the {@link java.util.concurrent.ExecutorService} to use
    */
   public Events(ExecutorService eventExecutor) {
-    objectForwardMap = new IdentityHashMap<>();
-    eventForwardMap = new HashMap<>();
+    this(eventExecutor, DefaultMainThread.instance);
+  }
+
+  /**
+   * Create a new {@code Events} instance that runs {@link RunType#MAIN} handlers on {@code mainThread}
+   * instead of the default one (the Android main thread on Android, and a shared {@link EventLoopMainThread}
+   * everywhere else).
+   * @param eventExecutor the {@link java.util.concurrent.ExecutorService} to use
+   * @param mainThread the {@link MainThread} to use
+   */
+  public Events(ExecutorService eventExecutor, MainThread mainThread) {
+    this(eventExecutor, null, mainThread);
+  }
+
+  /**
+   * Create a new {@code Events} instance that delivers to {@link RunType#BACKGROUND} handlers through
+   * {@code ringBufferEngine} instead of an {@code ExecutorService}.
+   * @param ringBufferEngine the {@link RingBufferEngine} to use
+   */
+  public Events(RingBufferEngine ringBufferEngine) {
+    this(ringBufferEngine, DefaultMainThread.instance);
+  }
+
+  /**
+   * Create a new {@code Events} instance that delivers to {@link RunType#BACKGROUND} handlers through
+   * {@code ringBufferEngine}, and runs {@link RunType#MAIN} handlers on {@code mainThread}.
+   * @param ringBufferEngine the {@link RingBufferEngine} to use
+   * @param mainThread the {@link MainThread} to use
+   */
+  public Events(RingBufferEngine ringBufferEngine, MainThread mainThread) {
+    this(defaultEventDispatcher, ringBufferEngine, mainThread);
+  }
 
-    onEventListeners = new HashSet<>();
+  private Events(ExecutorService eventExecutor, RingBufferEngine ringBufferEngine, MainThread mainThread) {
+    objectForwardMap = new IdentityHashMap<>();
+    weakSubscriptions = new HashMap<>();
+    weakSubscriptionHashes = new HashMap<>();
+    typedListeners = new HashMap<>();
+    collectedSubscribers = new ReferenceQueue<>();
+    eventRoutes = EventRoutes.EMPTY;
 
     this.eventExecutor = eventExecutor;
+    this.ringBufferEngine = ringBufferEngine;
+    this.mainThread = mainThread;
+    mainThreadDeliveries = new MainThreadDeliveryScheduler(mainThread, MainThreadDeliveryScheduler.SYSTEM_CLOCK);
+    backgroundQueueLimit = new BackgroundQueueLimit();
+    instrumentation = new Instrumentation();
+    stickyEvents = new StickyEvents();
+    namedExecutors = new ConcurrentHashMap<>();
   }
 
   /**
@@ -133,53 +288,310 @@ public class Events {
     return Singleton.instance;
   }
 
+  /**
+   * Registers {@code executor} as the executor for {@link RunType#EXECUTOR} handlers that name {@code name} as
+   * their {@link EventHandler#executor()}. Executors are looked up when a subscriber subscribes, so they should
+   * be registered at startup; subscribers that are already subscribed keep the executor they were given.
+   */
+  public void registerExecutor(String name, Executor executor) {
+    if(name == null || executor == null) {
+      throw new IllegalArgumentException("An executor needs a name");
+    }
+    namedExecutors.put(name, executor);
+  }
+
+  /**
+   * @return the executor for each of {@code dispatcher}'s handlers, indexed by event id, for the handlers that
+   * don't run on one of the shared threads
+   */
+  private Executor[] resolveHandlerExecutors(EventDispatcher dispatcher, int handlerCount) {
+    Executor[] handlerExecutors = new Executor[handlerCount];
+    for(int eventId = 0; eventId < handlerCount; eventId++) {
+      RunType runType = dispatcher.getRunType(eventId);
+      if(runType == RunType.VIRTUAL_THREAD) {
+        handlerExecutors[eventId] = VirtualThreads.getExecutor();
+      }
+      else if(runType == RunType.EXECUTOR) {
+        String name = dispatcher.getExecutorName(eventId);
+        Executor executor = namedExecutors.get(name);
+        if(executor == null) {
+          throw new IllegalStateException(String.format("No executor was registered with the name \"%s\"", name));
+        }
+        handlerExecutors[eventId] = executor;
+      }
+    }
+    return handlerExecutors;
+  }
+
   /**
    * Subscribe the {@code subscriber} to events that were specified with {@link EventHandler} methods.
+   * Throws an {@link IllegalStateException} if one of its {@link RunType#EXECUTOR} handlers names an executor
+   * that wasn't registered with {@link #registerExecutor(String, Executor)}. If there are sticky events for any
+   * of the exact event types that it handles, they are delivered to it right away (on the handlers'
+   * {@link RunType}s).
+   * @see #postSticky(Event)
+   */
+  public void subscribe(Object subscriber) {
+    subscribe(subscriber, false);
+  }
+
+  /**
+   * Like {@link #subscribe(Object)}, but {@code Events} only holds a weak reference to {@code subscriber}.
+   * If it is garbage collected without being unsubscribed, it stops receiving events, and it is removed
+   * the next time something is posted.
+   */
+  public void subscribeWeakly(Object subscriber) {
+    subscribe(subscriber, true);
+  }
+
+  private void subscribe(Object subscriber, boolean weak) {
+    Subscription subscription;
+    synchronized(this) {
+      removeCollectedSubscribers();
+
+      if(findSubscription(subscriber) != null) {
+        throw new IllegalStateException(String.format("%s already subscribed to events", subscriber.toString()));
+      }
+
+      EventDispatcher eventDispatcher = weak ?
+          eventDispatcherFactory.createWeakDispatcher(subscriber, collectedSubscribers) :
+          eventDispatcherFactory.createDispatcher(subscriber);
+      if(eventDispatcher == null) {
+        throw new IllegalStateException("You cannot pass an object that has not registered any @EventHandlers to Events.subscribe");
+      }
+
+      Executor[] handlerExecutors = resolveHandlerExecutors(eventDispatcher, eventDispatcher.getDispatchableEvents().size());
+      subscription = new Subscription(eventDispatcher, subscriber.getClass(), eventExecutor, backgroundQueueLimit,
+          instrumentation, handlerExecutors);
+      if(weak) {
+        addWeakSubscription(subscriber, subscription);
+      }
+      else {
+        objectForwardMap.put(subscriber, subscription);
+      }
+      eventRoutes = eventRoutes.withSubscriber(subscription);
+    }
+
+    // outside of the lock, since DEFAULT handlers are called right here
+    replayStickyEvents(subscription);
+  }
+
+  /**
+   * @return {@code subscriber}'s subscription, whether it is held strongly or weakly, or {@code null} if it isn't
+   * subscribed. Must hold the monitor.
+   */
+  private Subscription findSubscription(Object subscriber) {
+    Subscription subscription = objectForwardMap.get(subscriber);
+    if(subscription == null && !weakSubscriptions.isEmpty()) {
+      List<Subscription> sameHash = weakSubscriptions.get(System.identityHashCode(subscriber));
+      if(sameHash != null) {
+        for(Subscription weakSubscription : sameHash) {
+          if(weakSubscription.dispatcher.getSubjectReference().get() == subscriber) {
+            return weakSubscription;
+          }
+        }
+      }
+    }
+    return subscription;
+  }
+
+  // must hold the monitor
+  private void addWeakSubscription(Object subscriber, Subscription subscription) {
+    int hash = System.identityHashCode(subscriber);
+    List<Subscription> sameHash = weakSubscriptions.get(hash);
+    if(sameHash == null) {
+      sameHash = new ArrayList<>(1);
+      weakSubscriptions.put(hash, sameHash);
+    }
+    sameHash.add(subscription);
+    weakSubscriptionHashes.put(subscription.dispatcher.getSubjectReference(), hash);
+  }
+
+  /**
+   * @return the subscription whose dispatcher holds {@code reference}, or {@code null} if it was already removed.
+   * Must hold the monitor.
+   */
+  private Subscription removeWeakSubscription(Reference<?> reference) {
+    Integer hash = weakSubscriptionHashes.remove(reference);
+    if(hash == null) {
+      return null;
+    }
+
+    List<Subscription> sameHash = weakSubscriptions.get(hash);
+    for(int i = 0; i < sameHash.size(); i++) {
+      Subscription subscription = sameHash.get(i);
+      if(subscription.dispatcher.getSubjectReference() == reference) {
+        sameHash.remove(i);
+        if(sameHash.isEmpty()) {
+          weakSubscriptions.remove(hash);
+        }
+        return subscription;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the weakly held subscribers that were collected, if there are any. This is only a volatile read
+   * when there aren't, so it is cheap enough to do on every post.
    */
-  public synchronized void subscribe(Object subscriber) {
-    if(objectForwardMap.containsKey(subscriber)) {
-      throw new IllegalStateException(String.format("%s already subscribed to events", subscriber.toString()));
+  private void removeCollectedSubscribers() {
+    Reference<?> collected = collectedSubscribers.poll();
+    if(collected != null) {
+      removeCollectedSubscribers(collected);
     }
+  }
+
+  private synchronized void removeCollectedSubscribers(Reference<?> collected) {
+    EventRoutes eventRoutes = this.eventRoutes;
+    do {
+      Subscription subscription = removeWeakSubscription(collected);
+      if(subscription != null) {
+        eventRoutes = eventRoutes.withoutSubscriber(subscription);
+      }
+    } while((collected = collectedSubscribers.poll()) != null);
+    this.eventRoutes = eventRoutes;
+  }
 
-    EventDispatcher eventDispatcher = eventDispatcherFactory.createDispatcher(subscriber);
-    if(eventDispatcher == null) {
-      throw new IllegalStateException("You cannot pass an object that has not registered any @EventHandlers to Events.subscribe");
+  private void replayStickyEvents(Subscription subscription) {
+    if(stickyEvents.size() == 0) {
+      return;
     }
 
-    objectForwardMap.put(subscriber, eventDispatcher);
+    // one lookup per handled event type, no matter how many sticky events there are
+    for(Class<? extends Event> eventClass : subscription.dispatcher.getDispatchableEvents()) {
+      Event stickyEvent = stickyEvents.get(eventClass);
+      if(stickyEvent != null) {
+        int eventId = EventTypes.getHandledEventId(subscription.dispatcher, eventClass);
+        deliver(new EventTarget(subscription, eventId, subscription.dispatcher.getRunType(eventId)), stickyEvent);
+      }
+    }
+  }
 
-    for(Class<? extends Event> eventClass : eventDispatcher.getDispatchableEvents()) {
-      Set<EventDispatcher> dispatchers = eventForwardMap.get(eventClass);
-      if(dispatchers == null) {
-        dispatchers = new HashSet<>();
-        eventForwardMap.put(eventClass, dispatchers);
+  /**
+   * Delivers {@code event} to a single target on the target's {@link RunType}.
+   */
+  private void deliver(EventTarget target, Event event) {
+    if(target.runType == RunType.BACKGROUND) {
+      if(ringBufferEngine != null) {
+        if(!target.conflated) {
+          ringBufferEngine.publish(new EventTarget[] {target}, event);
+        }
+        else if(target.offerPendingEvent(event)) {
+          ringBufferEngine.publishPending(target);
+        }
+      }
+      else if(!target.conflated) {
+        target.subscription.getBackgroundLane().enqueue(EventDelivery.obtain(target, event));
+      }
+      else if(target.offerPendingEvent(event)) {
+        target.subscription.getBackgroundLane().enqueue(target);
       }
-      dispatchers.add(eventDispatcher);
+    }
+    else if(target.executor != null) {
+      if(!target.conflated) {
+        target.executor.execute(EventDelivery.obtain(target, event));
+      }
+      else if(target.offerPendingEvent(event)) {
+        target.executor.execute(target);
+      }
+    }
+    else if(target.runType == RunType.MAIN) {
+      if(mainThread.isCurrentThread()) {
+        if(!target.conflated) {
+          target.dispatch(event);
+        }
+        else {
+          target.dispatchNow(event);
+        }
+      }
+      else if(!target.conflated) {
+        mainThreadDeliveries.schedule(EventDelivery.obtain(target, event));
+      }
+      else if(target.offerPendingEvent(event)) {
+        mainThreadDeliveries.schedule(target);
+      }
+    }
+    else {
+      target.dispatch(event);
     }
   }
 
-  public void subscribe(OnEventListener onEventListener, RunType runType) {
-    synchronized (onEventListenersLock) {
-      onEventListeners.add(new OnEventListenerWrapper(onEventListener, runType));
+  /**
+   * Subscribe {@code onEventListener} to every event that is posted, whether or not anything else subscribed to it.
+   * To listen to a single event class, use {@link #subscribe(Class, OnEventListener, RunType)} instead.
+   * @param runType how to invoke {@code onEventListener}; it can't be {@link RunType#EXECUTOR} since there is
+   *                no handler to name the executor
+   */
+  public synchronized void subscribe(OnEventListener<? super Event> onEventListener, RunType runType) {
+    if(runType == RunType.EXECUTOR) {
+      throw new IllegalArgumentException("An OnEventListener can't be subscribed with RunType.EXECUTOR");
+    }
+
+    OnEventListenerWrapper wrapper = new OnEventListenerWrapper(onEventListener, runType);
+    if(eventRoutes.getListener(wrapper) == null) {
+      eventRoutes = eventRoutes.withListener(new Subscription(wrapper, onEventListener.getClass(), eventExecutor,
+          backgroundQueueLimit, instrumentation, resolveHandlerExecutors(wrapper, 1)));
     }
   }
 
+  /**
+   * Subscribe {@code onEventListener} to {@code eventClass} and its subclasses, as if it were a subscriber with a
+   * single {@link EventHandler} for {@code eventClass}. It is routed (and gets sticky events) the same way, so
+   * unlike the listeners that get every event, it gets {@code eventClass} events whether or not anything else
+   * handles them, and the events that it doesn't handle don't cost it anything. Subscribing the same listener to
+   * the same class with the same {@code runType} more than once has no effect.
+   * @param runType how to invoke {@code onEventListener}; it can't be {@link RunType#EXECUTOR} since there is
+   *                no handler to name the executor
+   */
+  public <E extends Event> void subscribe(Class<E> eventClass, OnEventListener<? super E> onEventListener, RunType runType) {
+    if(runType == RunType.EXECUTOR) {
+      throw new IllegalArgumentException("An OnEventListener can't be subscribed with RunType.EXECUTOR");
+    }
+
+    TypedOnEventListenerWrapper<E> wrapper = new TypedOnEventListenerWrapper<>(eventClass, onEventListener, runType);
+    Subscription subscription;
+    synchronized(this) {
+      if(typedListeners.containsKey(wrapper)) {
+        return;
+      }
+
+      subscription = new Subscription(wrapper, onEventListener.getClass(), eventExecutor, backgroundQueueLimit,
+          instrumentation, resolveHandlerExecutors(wrapper, 1));
+      typedListeners.put(wrapper, subscription);
+      eventRoutes = eventRoutes.withSubscriber(subscription);
+    }
+
+    // outside of the lock, since DEFAULT listeners are called right here
+    replayStickyEvents(subscription);
+  }
+
+  /**
+   * Undoes {@link #unsubscribeFromEvent(Object, Class)}. Deliveries to the handler for exactly {@code eventClass}
+   * that start after this returns are made again.
+   */
   public synchronized void resubscribeToEvent(Object subscriber, Class<? extends Event> eventClass) {
-    if(!objectForwardMap.containsKey(subscriber)) {
+    Subscription subscription = findSubscription(subscriber);
+    if(subscription == null) {
       throw new IllegalStateException(String.format("%s never subscribed to %s", subscriber.toString(), eventClass.toString()));
     }
 
-    EventDispatcher eventDispatcher = objectForwardMap.get(subscriber);
-    eventDispatcher.unblockDispatch(eventClass);
+    subscription.dispatcher.unblockDispatch(eventClass);
   }
 
+  /**
+   * Stops delivering to {@code subscriber}'s handler for exactly {@code eventClass}, without unsubscribing it.
+   * Every delivery to that handler that starts after this returns is skipped, on any thread, including deliveries
+   * of events that were posted before this was called but are still queued. A delivery that is already running
+   * finishes normally.
+   */
   public synchronized void unsubscribeFromEvent(Object subscriber, Class<? extends Event> eventClass) {
-    if(!objectForwardMap.containsKey(subscriber)) {
+    Subscription subscription = findSubscription(subscriber);
+    if(subscription == null) {
       throw new IllegalStateException(String.format("%s never subscribed to %s", subscriber.toString(), eventClass.toString()));
     }
 
-    EventDispatcher eventDispatcher = objectForwardMap.get(subscriber);
-    eventDispatcher.blockDispatch(eventClass);
+    subscription.dispatcher.blockDispatch(eventClass);
   }
 
   /**
@@ -187,87 +599,483 @@ public class Events {
    * @param subscriber the {@code Object} to unsubscribe
    */
   public synchronized void unsubscribe(Object subscriber) {
-    EventDispatcher eventDispatcher = objectForwardMap.remove(subscriber);
-
-    if(eventDispatcher != null) {
-      for(Class<? extends Event> eventClass : eventDispatcher.getDispatchableEvents()) {
-        Set<EventDispatcher> dispatchers = eventForwardMap.get(eventClass);
-        if(dispatchers != null) {
-          dispatchers.remove(eventDispatcher);
-        }
+    Subscription subscription = objectForwardMap.remove(subscriber);
+    if(subscription == null) {
+      subscription = findSubscription(subscriber);
+      if(subscription != null) {
+        removeWeakSubscription(subscription.dispatcher.getSubjectReference());
       }
     }
+
+    if(subscription != null) {
+      eventRoutes = eventRoutes.withoutSubscriber(subscription);
+    }
+  }
+
+  public synchronized void unsubscribe(OnEventListener<? super Event> onEventListener, RunType runType) {
+    Subscription listener = eventRoutes.getListener(new OnEventListenerWrapper(onEventListener, runType));
+    if(listener != null) {
+      eventRoutes = eventRoutes.withoutListener(listener);
+    }
+  }
+
+  /**
+   * @return a stream of the {@code eventClass} events (including its subclasses) that are posted from now on, which
+   * buffers up to 128 undelivered events for each of its subscribers, and drops the oldest one when that's full
+   * @see #stream(Class, int, OverflowPolicy)
+   */
+  public <E extends Event> EventStream<E> stream(Class<E> eventClass) {
+    return stream(eventClass, 128, OverflowPolicy.DROP_OLDEST);
+  }
+
+  /**
+   * @return a Reactive Streams {@link org.reactivestreams.Publisher} of the {@code eventClass} events (including its
+   * subclasses) that are posted from now on. It's routed like any other subscriber, for each of its subscribers,
+   * so it costs nothing until it's subscribed to.
+   * @param bufferCapacity how many events can wait for each subscriber to request them
+   * @param overflowPolicy what to do when a subscriber's buffer is full; it can't be {@link OverflowPolicy#BLOCK}
+   */
+  public <E extends Event> EventStream<E> stream(Class<E> eventClass, int bufferCapacity, OverflowPolicy overflowPolicy) {
+    return new EventStream<>(this, eventClass, bufferCapacity, overflowPolicy);
+  }
+
+  /*package*/ Subscription subscribeStream(EventDispatcher streamSubscription, Class<?> subscriberClass) {
+    Subscription subscription;
+    synchronized(this) {
+      subscription = new Subscription(streamSubscription, subscriberClass, eventExecutor, backgroundQueueLimit,
+          instrumentation, new Executor[1]);
+      eventRoutes = eventRoutes.withSubscriber(subscription);
+    }
+
+    // outside of the lock, since streams deliver on the thread that posts to them
+    replayStickyEvents(subscription);
+    return subscription;
+  }
+
+  /*package*/ synchronized void unsubscribeStream(Subscription subscription) {
+    eventRoutes = eventRoutes.withoutSubscriber(subscription);
   }
 
-  public void unsubscribe(OnEventListener onEventListener, RunType runType) {
-    synchronized (onEventListenersLock) {
-      onEventListeners.remove(new OnEventListenerWrapper(onEventListener, runType));
+  /**
+   * Undoes {@link #subscribe(Class, OnEventListener, RunType)}.
+   */
+  public synchronized <E extends Event> void unsubscribe(Class<E> eventClass, OnEventListener<? super E> onEventListener,
+                                                         RunType runType) {
+    Subscription listener = typedListeners.remove(new TypedOnEventListenerWrapper<>(eventClass, onEventListener, runType));
+    if(listener != null) {
+      eventRoutes = eventRoutes.withoutSubscriber(listener);
     }
   }
 
   /**
-   * Posts an {@link Event} to its subscribers
+   * Posts an {@link Event} to its subscribers, including the ones that subscribed to one of its supertypes
    * @param event the {@code Event} to post
    */
   public <T extends Event> void post(T event) {
-    Set<EventDispatcher> eventDispatchers = eventForwardMap.get((event.getClass()));
-    if(eventDispatchers == null) {
-      return;
+    removeCollectedSubscribers();
+    EventRoute route = eventRoutes.get(event.getClass());
+
+    EventsMonitor monitor = instrumentation.getMonitor();
+    if(monitor != null) {
+      monitor.onPost(event.getClass(), route.targetCount);
     }
 
-    Set<EventDispatcher> dispatchers = new HashSet<>(eventDispatchers);
-    dispatchers.addAll(onEventListeners);
+    post(route, event);
+  }
+
+  private void post(EventRoute route, Event event) {
+    enqueueBackgroundTargets(route, event);
 
-    List<EventDispatcher> backgroundDispatchers = new ArrayList<>();
-    List<EventDispatcher> mainThreadDispatchers = new ArrayList<>();
-    List<EventDispatcher> postingThreadDispatchers = new ArrayList<>();
+    // hand the executor targets to the executors that were resolved for them when they subscribed
+    for(EventTarget target : route.executorTargets) {
+      target.executor.execute(EventDelivery.obtain(target, event));
+    }
+    for(EventTarget target : route.conflatedExecutorTargets) {
+      if(target.offerPendingEvent(event)) {
+        target.executor.execute(target);
+      }
+    }
 
-    for(EventDispatcher dispatcher : dispatchers) {
-      RunType runType = dispatcher.getRunTypeForEvent(event.getClass());
-      if(runType == RunType.BACKGROUND) {
-        backgroundDispatchers.add(dispatcher);
+    boolean hasMainThreadTargets = route.mainThreadTargets.length > 0 || route.conflatedMainThreadTargets.length > 0;
+    if(hasMainThreadTargets && mainThread.isCurrentThread()) {
+      // the main thread targets are invoked right here as well, so they're invoked in priority order together with
+      // the posting thread targets, and a ConsumableEvent that one of them consumes is kept from all of the rest
+      for(EventTarget target : route.mainAndPostingThreadTargets) {
+        if(target.conflated) {
+          target.dispatchNow(event);
+        }
+        else {
+          target.dispatch(event);
+        }
       }
-      else if(runType == RunType.MAIN) {
-        mainThreadDispatchers.add(dispatcher);
+      return;
+    }
+
+    // send the main thread targets to be posted on the main thread
+    if(hasMainThreadTargets) {
+      for(EventTarget target : route.mainThreadTargets) {
+        mainThreadDeliveries.schedule(EventDelivery.obtain(target, event));
       }
-      else if(runType == RunType.DEFAULT) {
-        postingThreadDispatchers.add(dispatcher);
+      for(EventTarget target : route.conflatedMainThreadTargets) {
+        if(target.offerPendingEvent(event)) {
+          mainThreadDeliveries.schedule(target);
+        }
       }
     }
 
-    // send the background dispatchers to be posted on a background thread
-    eventExecutor.execute(new EventDispatchRunnable<>(backgroundDispatchers, event));
+    // invoke the posting thread targets
+    for(EventTarget target : route.postingThreadTargets) {
+      target.dispatch(event);
+    }
+  }
+
+  /**
+   * Posts {@code event} like {@link #post(Event)}, and returns the response of the handlers that return a value
+   * (the first non-{@code null} one, or {@code null} if they all return {@code null}). The handlers that don't
+   * return anything get the event as usual.
+   * <br>
+   * <br>
+   * Every handler gets the event in priority order, whether or not it returns a value, and on a
+   * {@link RingBufferEngine} the {@link RunType#BACKGROUND} ones that return a value go through the ring like the
+   * rest, so each subscriber gets its events in the order they were posted.
+   * @param responseType the type that the response has to be (the boxed type, for handlers that return a primitive);
+   *                     if the first non-{@code null} value isn't one, the response fails with a
+   *                     {@link ClassCastException}
+   * @return the response, which completes right away with {@code null} if no handler returns a value
+   */
+  public <R> EventResponse<R> request(Event event, Class<R> responseType) {
+    if(responseType == null) {
+      throw new IllegalArgumentException("The response type can't be null");
+    }
+
+    removeCollectedSubscribers();
+    EventRoute route = eventRoutes.get(event.getClass());
+
+    EventsMonitor monitor = instrumentation.getMonitor();
+    if(monitor != null) {
+      monitor.onPost(event.getClass(), route.targetCount);
+    }
+
+    EventResponse<R> response = new EventResponse<>(responseType, route.respondingTargetCount, mainThread,
+        eventExecutor);
+
+    // a single pass over every target in priority order, so the ones that respond aren't set apart from the rest,
+    // and each subscriber still gets its deliveries in the order they were made
+    boolean isMainThread = mainThread.isCurrentThread();
+    for(EventTarget target : route.targets) {
+      if(!target.responds) {
+        deliver(target, event);
+        continue;
+      }
+
+      boolean runsHere = target.runType == RunType.DEFAULT || (target.runType == RunType.MAIN && isMainThread);
+      long queuedAt = runsHere ? EventTarget.NOT_QUEUED :
+          (target.getMonitor() == null ? EventTarget.QUEUED_AT_UNKNOWN : System.nanoTime());
+      ResponseDelivery delivery = new ResponseDelivery(target, event, response, queuedAt);
 
-    // send the main thread dispatchers to be posted on the main thread, or invoke them if we are on the main thread
-    if(Looper.myLooper() == Looper.getMainLooper()) {
-      for(EventDispatcher eventDispatcher : mainThreadDispatchers) {
-        eventDispatcher.dispatchEvent(event);
+      if(runsHere) {
+        delivery.run();
+      }
+      else if(target.runType == RunType.BACKGROUND) {
+        if(ringBufferEngine != null) {
+          ringBufferEngine.publishTask(target, delivery);
+        }
+        else {
+          target.subscription.getBackgroundLane().enqueue(delivery);
+        }
+      }
+      else if(target.runType == RunType.MAIN) {
+        mainThreadDeliveries.schedule(delivery);
+      }
+      else {
+        target.executor.execute(delivery);
       }
     }
-    else {
-      mainPoster.post(new EventDispatchRunnable<>(mainThreadDispatchers, event));
+
+    return response;
+  }
+
+  /**
+   * Like {@link #request(Event, Class)}, for when any type of response will do.
+   */
+  public EventResponse<Object> request(Event event) {
+    return request(event, Object.class);
+  }
+
+  /**
+   * Queues {@code event} for {@code route}'s background targets, on their subscribers' background lanes or in the
+   * ring buffer.
+   */
+  private void enqueueBackgroundTargets(EventRoute route, Event event) {
+    if(ringBufferEngine != null) {
+      if(route.backgroundTargets.length > 0) {
+        ringBufferEngine.publish(route.backgroundTargets, event);
+      }
+      for(EventTarget target : route.conflatedBackgroundTargets) {
+        if(target.offerPendingEvent(event)) {
+          ringBufferEngine.publishPending(target);
+        }
+      }
+      return;
     }
 
-    // invoke the posting thread dispatchers
-    for(EventDispatcher eventDispatcher : postingThreadDispatchers) {
-      eventDispatcher.dispatchEvent(event);
+    for(EventTarget target : route.backgroundTargets) {
+      target.subscription.getBackgroundLane().enqueue(EventDelivery.obtain(target, event));
+    }
+    for(EventTarget target : route.conflatedBackgroundTargets) {
+      if(target.offerPendingEvent(event)) {
+        target.subscription.getBackgroundLane().enqueue(target);
+      }
     }
   }
 
-  private static class EventDispatchRunnable<T extends Event> implements Runnable {
-    private T event;
-    private List<EventDispatcher> dispatchers;
+  /**
+   * Posts an {@link Event} to its subscribers, and keeps it as the sticky event for its class so that it is
+   * also delivered to subscribers that subscribe later. It stays sticky until another event of the same class
+   * is posted with {@code postSticky}, it is removed, or it is evicted because there are more sticky
+   * event classes than {@link #setMaxStickyEvents(int)} allows.
+   * @param event the {@code Event} to post
+   */
+  public <T extends Event> void postSticky(T event) {
+    stickyEvents.put(event);
+    post(event);
+  }
 
-    public EventDispatchRunnable(List<EventDispatcher> dispatchers, T event) {
-      this.dispatchers = dispatchers;
-      this.event = event;
+  /**
+   * @return the sticky event for exactly {@code eventClass}, or {@code null} if there isn't one
+   */
+  public <T extends Event> T getStickyEvent(Class<T> eventClass) {
+    return eventClass.cast(stickyEvents.get(eventClass));
+  }
+
+  /**
+   * Removes the sticky event for exactly {@code eventClass}.
+   * @return the removed sticky event, or {@code null} if there wasn't one
+   */
+  public <T extends Event> T removeStickyEvent(Class<T> eventClass) {
+    return eventClass.cast(stickyEvents.remove(eventClass));
+  }
+
+  /**
+   * Removes {@code event} if it is still the sticky event for its class.
+   * @return whether {@code event} was removed
+   */
+  public boolean removeStickyEvent(Event event) {
+    return stickyEvents.remove(event);
+  }
+
+  public void removeAllStickyEvents() {
+    stickyEvents.clear();
+  }
+
+  /**
+   * Sets how many event classes can have a sticky event at the same time. When there are more, the sticky events
+   * that were posted longest ago are removed. Defaults to 64.
+   */
+  public void setMaxStickyEvents(int maxStickyEvents) {
+    stickyEvents.setMaxSize(maxStickyEvents);
+  }
+
+  /**
+   * Posts each {@link Event} in {@code events} to its subscribers, in iteration order. All of a subscriber's
+   * background deliveries are queued on its background lane together, and all of the main thread deliveries are
+   * queued for the main thread together, so a burst of events only crosses each thread boundary once.
+   * Each subscriber still receives the events in the order they were iterated, except for conflated handlers,
+   * which only receive the latest one.
+   * @param events the {@code Event}s to post
+   */
+  public void postAll(Collection<? extends Event> events) {
+    int size = events.size();
+    if(size == 0) {
+      return;
     }
 
-    @Override
-    public void run() {
-      for(EventDispatcher eventDispatcher : dispatchers) {
-        eventDispatcher.dispatchEvent(event);
+    // resolve every route against the same snapshot
+    removeCollectedSubscribers();
+    EventRoutes eventRoutes = this.eventRoutes;
+    boolean isMainThread = mainThread.isCurrentThread();
+    EventsMonitor monitor = instrumentation.getMonitor();
+
+    Event[] batchEvents = new Event[size];
+    EventRoute[] batchRoutes = new EventRoute[size];
+    boolean hasMainThreadTargets = false;
+    List<EventTarget> pendingMainThreadTargets = null;
+
+    int i = 0;
+    for(Event event : events) {
+      EventRoute route = eventRoutes.get(event.getClass());
+      batchEvents[i] = event;
+      batchRoutes[i] = route;
+      hasMainThreadTargets |= route.mainThreadTargets.length > 0;
+      i++;
+
+      if(monitor != null) {
+        monitor.onPost(event.getClass(), route.targetCount);
+      }
+
+      enqueueBackgroundTargets(route, event);
+      for(EventTarget target : route.executorTargets) {
+        target.executor.execute(EventDelivery.obtain(target, event));
+      }
+      for(EventTarget target : route.conflatedExecutorTargets) {
+        if(target.offerPendingEvent(event)) {
+          target.executor.execute(target);
+        }
       }
+      for(EventTarget target : route.conflatedMainThreadTargets) {
+        if(target.offerPendingEvent(event)) {
+          if(isMainThread) {
+            // delivered after the rest of the batch's main thread targets, with whatever is latest by then
+            if(pendingMainThreadTargets == null) {
+              pendingMainThreadTargets = new ArrayList<>();
+            }
+            pendingMainThreadTargets.add(target);
+          }
+          else {
+            mainThreadDeliveries.schedule(target);
+          }
+        }
+      }
+    }
+
+    if(isMainThread) {
+      // like post, each event's main thread and posting thread targets are invoked together in priority order; the
+      // conflated ones are left for after the batch
+      for(i = 0; i < size; i++) {
+        for(EventTarget target : batchRoutes[i].mainAndPostingThreadTargets) {
+          if(!target.conflated) {
+            target.dispatch(batchEvents[i]);
+          }
+        }
+      }
+      if(pendingMainThreadTargets != null) {
+        for(EventTarget target : pendingMainThreadTargets) {
+          target.run();
+        }
+      }
+      return;
+    }
+
+    if(hasMainThreadTargets) {
+      // queued individually so that the main thread can spread a large batch over several frames
+      for(i = 0; i < size; i++) {
+        for(EventTarget target : batchRoutes[i].mainThreadTargets) {
+          mainThreadDeliveries.schedule(EventDelivery.obtain(target, batchEvents[i]));
+        }
+      }
+    }
+
+    for(i = 0; i < size; i++) {
+      for(EventTarget target : batchRoutes[i].postingThreadTargets) {
+        target.dispatch(batchEvents[i]);
+      }
+    }
+  }
+
+  /**
+   * Sets how long {@link RunType#MAIN} deliveries can run for in a single main thread message before the rest
+   * are pushed to the next message, so that a burst of events doesn't cause dropped frames. Defaults to 8ms.
+   */
+  public void setMainThreadFrameBudget(long frameBudget, TimeUnit unit) {
+    mainThreadDeliveries.setFrameBudget(frameBudget, unit);
+  }
+
+  /**
+   * @return how many {@link RunType#MAIN} deliveries are waiting for the main thread
+   */
+  public int getPendingMainThreadDeliveryCount() {
+    return mainThreadDeliveries.getPendingDeliveryCount();
+  }
+
+  /**
+   * @return the total number of {@link RunType#MAIN} deliveries that were pushed to a later main thread message
+   * because the frame budget ran out (a delivery that is pushed back more than once is counted each time)
+   */
+  public long getDeferredMainThreadDeliveryCount() {
+    return mainThreadDeliveries.getDeferredDeliveryCount();
+  }
+
+  /**
+   * @return how many times {@link RunType#MAIN} deliveries ran out of frame budget and yielded to the main thread
+   */
+  public long getMainThreadYieldCount() {
+    return mainThreadDeliveries.getYieldCount();
+  }
+
+  /**
+   * Limits how many {@link RunType#BACKGROUND} deliveries can be queued for each subscriber (and each
+   * {@link OnEventListener}), and sets what happens to a delivery that doesn't fit. By default the queues are
+   * unbounded. This applies to subscribers that are already subscribed as well.
+   * @param capacity the maximum number of queued deliveries per subscriber
+   * @param overflowPolicy what to do when a subscriber's queue is full
+   */
+  public void setBackgroundQueueLimit(int capacity, OverflowPolicy overflowPolicy) {
+    backgroundQueueLimit.set(capacity, overflowPolicy);
+  }
+
+  /**
+   * @return how many {@link RunType#BACKGROUND} deliveries are waiting for {@code subscriber}, or {@code 0} if it
+   * isn't subscribed
+   */
+  public synchronized int getBackgroundQueueDepth(Object subscriber) {
+    Subscription subscription = findSubscription(subscriber);
+    return subscription == null ? 0 : subscription.getBackgroundQueueDepth();
+  }
+
+  /**
+   * @return the total number of {@link RunType#BACKGROUND} deliveries that were dropped because a subscriber's
+   * queue was full
+   * @see #setBackgroundQueueLimit(int, OverflowPolicy)
+   */
+  public long getDroppedBackgroundDeliveryCount() {
+    return backgroundQueueLimit.getDroppedDeliveryCount();
+  }
+
+  /**
+   * Sets the {@link EventsMonitor} that is told about every post and handler call from now on, including the
+   * calls to handlers that already subscribed, or removes it if {@code monitor} is {@code null}. There is no
+   * monitor by default.
+   * @see EventsMetrics
+   */
+  public void setMonitor(EventsMonitor monitor) {
+    instrumentation.setMonitor(monitor);
+  }
+
+  /**
+   * @return the current monitor, or {@code null} if there isn't one
+   */
+  public EventsMonitor getMonitor() {
+    return instrumentation.getMonitor();
+  }
+
+  /**
+   * Starts collecting {@link Event}s that will all be posted together with {@link #postAll(Collection)}
+   * when {@link Batch#commit()} is called.
+   */
+  public Batch beginBatch() {
+    return new Batch();
+  }
+
+  /**
+   * A group of {@link Event}s that are posted together. Nothing is delivered (including to
+   * {@link RunType#DEFAULT} handlers) until {@link #commit()} is called.
+   */
+  public final class Batch {
+    private final List<Event> events = new ArrayList<>();
+
+    private Batch() {}
+
+    public <T extends Event> Batch post(T event) {
+      events.add(event);
+      return this;
+    }
+
+    /**
+     * Posts all of the {@link Event}s in this batch, and clears it so that it can be reused.
+     */
+    public void commit() {
+      postAll(events);
+      events.clear();
     }
   }
 }
@@ -0,0 +1,237 @@
+package com.staticbloc.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link EventsMonitor} that keeps lock free statistics for every posted event class and every handler: how often
+ * each class is posted and how many handlers it fans out to, and histograms of how long each handler's deliveries
+ * wait and run for.
+ * <br>
+ * <br>
+ * A handler call that runs for longer than the slow call threshold (a 60fps frame by default) is counted as slow, and
+ * passed to the {@link SlowHandlerListener} if there is one, so that the handler that is eating frames can be found.
+ */
+public class EventsMetrics implements EventsMonitor {
+  public interface SlowHandlerListener {
+    /**
+     * Called on the thread that the slow handler ran on, right after it returns.
+     */
+    void onSlowHandler(HandlerMetrics handler, long runNanos);
+  }
+
+  public static final class EventClassMetrics {
+    private final Class<? extends Event> eventClass;
+    private final StripedCounter postCount = new StripedCounter();
+    private final StripedCounter handlerCount = new StripedCounter();
+
+    private EventClassMetrics(Class<? extends Event> eventClass) {
+      this.eventClass = eventClass;
+    }
+
+    public Class<? extends Event> getEventClass() {
+      return eventClass;
+    }
+
+    public long getPostCount() {
+      return postCount.get();
+    }
+
+    /**
+     * @return how many handlers this class's posts were routed to, in total
+     */
+    public long getHandlerCount() {
+      return handlerCount.get();
+    }
+
+    public double getAverageFanOut() {
+      long postCount = getPostCount();
+      return postCount == 0 ? 0 : (double) getHandlerCount() / postCount;
+    }
+  }
+
+  public static final class HandlerMetrics {
+    private final Class<?> subscriberClass;
+    private final Class<? extends Event> handledEventClass;
+    private final RunType runType;
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final StripedCounter slowCallCount = new StripedCounter();
+
+    private HandlerMetrics(Class<?> subscriberClass, Class<? extends Event> handledEventClass, RunType runType) {
+      this.subscriberClass = subscriberClass;
+      this.handledEventClass = handledEventClass;
+      this.runType = runType;
+    }
+
+    public Class<?> getSubscriberClass() {
+      return subscriberClass;
+    }
+
+    public Class<? extends Event> getHandledEventClass() {
+      return handledEventClass;
+    }
+
+    public RunType getRunType() {
+      return runType;
+    }
+
+    public long getCallCount() {
+      return runTime.getCount();
+    }
+
+    public long getSlowCallCount() {
+      return slowCallCount.get();
+    }
+
+    /**
+     * @return how long the deliveries to this handler waited in a queue, for the ones where it's known
+     */
+    public LatencyHistogram getQueueTime() {
+      return queueTime;
+    }
+
+    public LatencyHistogram getRunTime() {
+      return runTime;
+    }
+
+    @Override
+    public String toString() {
+      return subscriberClass.getName() + "(" + handledEventClass.getName() + ", " + runType + ")";
+    }
+  }
+
+  private final long slowCallThresholdNanos;
+  private volatile SlowHandlerListener slowHandlerListener;
+
+  private final ConcurrentMap<Class<? extends Event>, EventClassMetrics> eventClasses = new ConcurrentHashMap<>();
+  // by subscriber class and then by handled event class, so that looking a handler up doesn't allocate a key;
+  // the run type is part of the key as well, since a listener class can subscribe with more than one
+  private final ConcurrentMap<Class<?>, ConcurrentMap<Class<? extends Event>, AtomicReferenceArray<HandlerMetrics>>> handlers =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Counts handler calls that run for longer than 16ms as slow.
+   */
+  public EventsMetrics() {
+    this(16, TimeUnit.MILLISECONDS);
+  }
+
+  public EventsMetrics(long slowCallThreshold, TimeUnit unit) {
+    this.slowCallThresholdNanos = unit.toNanos(slowCallThreshold);
+  }
+
+  public void setSlowHandlerListener(SlowHandlerListener slowHandlerListener) {
+    this.slowHandlerListener = slowHandlerListener;
+  }
+
+  @Override
+  public void onPost(Class<? extends Event> eventClass, int handlerCount) {
+    EventClassMetrics metrics = eventClasses.get(eventClass);
+    if(metrics == null) {
+      metrics = new EventClassMetrics(eventClass);
+      EventClassMetrics existing = eventClasses.putIfAbsent(eventClass, metrics);
+      if(existing != null) {
+        metrics = existing;
+      }
+    }
+
+    metrics.postCount.increment();
+    metrics.handlerCount.add(handlerCount);
+  }
+
+  @Override
+  public void onHandlerCalled(Class<?> subscriberClass, Class<? extends Event> handledEventClass, RunType runType,
+                              long queuedNanos, long runNanos) {
+    HandlerMetrics metrics = getHandlerMetrics(subscriberClass, handledEventClass, runType);
+    metrics.queueTime.record(queuedNanos);
+    metrics.runTime.record(runNanos);
+
+    if(runNanos > slowCallThresholdNanos) {
+      metrics.slowCallCount.increment();
+      SlowHandlerListener slowHandlerListener = this.slowHandlerListener;
+      if(slowHandlerListener != null) {
+        slowHandlerListener.onSlowHandler(metrics, runNanos);
+      }
+    }
+  }
+
+  private HandlerMetrics getHandlerMetrics(Class<?> subscriberClass, Class<? extends Event> handledEventClass,
+                                           RunType runType) {
+    ConcurrentMap<Class<? extends Event>, AtomicReferenceArray<HandlerMetrics>> subscriberHandlers = handlers.get(subscriberClass);
+    if(subscriberHandlers == null) {
+      subscriberHandlers = new ConcurrentHashMap<>();
+      ConcurrentMap<Class<? extends Event>, AtomicReferenceArray<HandlerMetrics>> existing = handlers.putIfAbsent(subscriberClass, subscriberHandlers);
+      if(existing != null) {
+        subscriberHandlers = existing;
+      }
+    }
+
+    AtomicReferenceArray<HandlerMetrics> byRunType = subscriberHandlers.get(handledEventClass);
+    if(byRunType == null) {
+      byRunType = new AtomicReferenceArray<>(RunType.values().length);
+      AtomicReferenceArray<HandlerMetrics> existing = subscriberHandlers.putIfAbsent(handledEventClass, byRunType);
+      if(existing != null) {
+        byRunType = existing;
+      }
+    }
+
+    HandlerMetrics metrics = byRunType.get(runType.ordinal());
+    if(metrics == null) {
+      metrics = new HandlerMetrics(subscriberClass, handledEventClass, runType);
+      if(!byRunType.compareAndSet(runType.ordinal(), null, metrics)) {
+        metrics = byRunType.get(runType.ordinal());
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * @return the metrics for every event class that was posted, busiest first
+   */
+  public List<EventClassMetrics> getEventClassMetrics() {
+    List<EventClassMetrics> metrics = new ArrayList<>(eventClasses.values());
+    Collections.sort(metrics, new Comparator<EventClassMetrics>() {
+      @Override
+      public int compare(EventClassMetrics lhs, EventClassMetrics rhs) {
+        long lhsCount = lhs.getPostCount();
+        long rhsCount = rhs.getPostCount();
+        return lhsCount < rhsCount ? 1 : (lhsCount == rhsCount ? 0 : -1);
+      }
+    });
+    return metrics;
+  }
+
+  /**
+   * @return the metrics for every handler that was called, the ones with the most slow calls first
+   */
+  public List<HandlerMetrics> getHandlerMetrics() {
+    List<HandlerMetrics> metrics = new ArrayList<>();
+    for(ConcurrentMap<Class<? extends Event>, AtomicReferenceArray<HandlerMetrics>> subscriberHandlers : handlers.values()) {
+      for(AtomicReferenceArray<HandlerMetrics> byRunType : subscriberHandlers.values()) {
+        for(int i = 0; i < byRunType.length(); i++) {
+          HandlerMetrics handler = byRunType.get(i);
+          if(handler != null) {
+            metrics.add(handler);
+          }
+        }
+      }
+    }
+
+    Collections.sort(metrics, new Comparator<HandlerMetrics>() {
+      @Override
+      public int compare(HandlerMetrics lhs, HandlerMetrics rhs) {
+        long lhsCount = lhs.getSlowCallCount();
+        long rhsCount = rhs.getSlowCallCount();
+        return lhsCount < rhsCount ? 1 : (lhsCount == rhsCount ? 0 : -1);
+      }
+    });
+    return metrics;
+  }
+}
@@ -0,0 +1,30 @@
+package com.staticbloc.events;
+
+/**
+ * Gets told about every post and every handler call of an {@link Events} instance that it is
+ * {@link Events#setMonitor(EventsMonitor) set} on. {@link EventsMetrics} is a ready-made implementation.
+ * <br>
+ * <br>
+ * Both methods are called on the thread that posted or handled the event, so implementations have to be thread
+ * safe, and should be cheap, since they slow down every post and every handler call. When no monitor is set,
+ * {@code Events} doesn't even read the clock.
+ */
+public interface EventsMonitor {
+  /**
+   * Called on the posting thread for every posted event.
+   * @param handlerCount how many handlers the event was routed to
+   */
+  void onPost(Class<? extends Event> eventClass, int handlerCount);
+
+  /**
+   * Called after a handler returns (or throws), on the thread that it ran on.
+   * @param subscriberClass the class of the subscriber (or {@link Events.OnEventListener}) that the handler belongs to
+   * @param handledEventClass the event type that the handler takes, which can be a supertype of the posted event's class
+   * @param queuedNanos how long the delivery waited before the handler was called; {@code 0} for handlers that
+   *                    are called on the posting thread, and {@code -1} if it isn't known (for conflated handlers,
+   *                    and when the background handlers run on a {@link RingBufferEngine})
+   * @param runNanos how long the handler ran for
+   */
+  void onHandlerCalled(Class<?> subscriberClass, Class<? extends Event> handledEventClass, RunType runType,
+                       long queuedNanos, long runNanos);
+}
@@ -0,0 +1,20 @@
+package com.staticbloc.events;
+
+/**
+ * Holds the {@link EventsMonitor} of an {@link Events} instance. It is shared by all of its subscriptions, the same
+ * way that {@link BackgroundQueueLimit} is, so that setting a monitor applies to handlers that already subscribed.
+ */
+/*package*/ final class Instrumentation {
+  private volatile EventsMonitor monitor;
+
+  /**
+   * @return the monitor, or {@code null} if there isn't one
+   */
+  public EventsMonitor getMonitor() {
+    return monitor;
+  }
+
+  public void setMonitor(EventsMonitor monitor) {
+    this.monitor = monitor;
+  }
+}
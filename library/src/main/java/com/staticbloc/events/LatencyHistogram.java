@@ -0,0 +1,112 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations in nanoseconds, that any number of threads can record into at once.
+ * <br>
+ * <br>
+ * Like HdrHistogram, every power of two is split into {@value #SUB_BUCKET_COUNT} equally sized buckets, so the
+ * values that it reports are within 12.5% of the recorded ones, from a nanosecond up to hundreds of years, in a
+ * fixed {@value #BUCKET_COUNT} buckets. Recording a value is a few shifts and an atomic increment.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // values below SUB_BUCKET_COUNT get a bucket each, and every power of two after that gets SUB_BUCKET_COUNT
+  private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final StripedCounter total = new StripedCounter();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a duration; negative ones are ignored.
+   */
+  public void record(long nanos) {
+    if(nanos < 0) {
+      return;
+    }
+
+    buckets.incrementAndGet(getBucketIndex(nanos));
+    total.add(nanos);
+
+    long currentMax;
+    do {
+      currentMax = max.get();
+    } while(nanos > currentMax && !max.compareAndSet(currentMax, nanos));
+  }
+
+  public long getCount() {
+    long count = 0;
+    for(int i = 0; i < BUCKET_COUNT; i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  public long getMax(TimeUnit unit) {
+    return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+  }
+
+  public long getMean(TimeUnit unit) {
+    long count = getCount();
+    return count == 0 ? 0 : unit.convert(total.get() / count, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param percentile between {@code 0} and {@code 100}
+   * @return the duration that {@code percentile} percent of the recorded durations are at or below, which is the
+   * highest value of the bucket that it falls in
+   */
+  public long getValueAtPercentile(double percentile, TimeUnit unit) {
+    if(percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("The percentile has to be between 0 and 100");
+    }
+
+    // a snapshot, since other threads may be recording while this runs
+    long[] counts = new long[BUCKET_COUNT];
+    long count = 0;
+    for(int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      count += counts[i];
+    }
+    if(count == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for(int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if(seen >= rank) {
+        return unit.convert(Math.min(getBucketHighestValue(i), max.get()), TimeUnit.NANOSECONDS);
+      }
+    }
+    return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /*package*/ static int getBucketIndex(long value) {
+    if(value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /*package*/ static long getBucketHighestValue(int index) {
+    if(index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+
+    int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+    long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+    long lowest = (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    return lowest + width - 1;
+  }
+}
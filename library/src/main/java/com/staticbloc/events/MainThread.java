@@ -0,0 +1,20 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The thread that {@link RunType#MAIN} handlers run on. {@link Events} uses {@link AndroidMainThread} when it
+ * runs on Android, and an {@link EventLoopMainThread} everywhere else, unless it is given a {@code MainThread}.
+ */
+public interface MainThread extends Executor {
+  /**
+   * Runs {@code r} on the main thread at some point after this returns, even if it is called on the main thread.
+   */
+  @Override
+  void execute(Runnable r);
+
+  /**
+   * @return whether the calling thread is the main thread
+   */
+  boolean isCurrentThread();
+}
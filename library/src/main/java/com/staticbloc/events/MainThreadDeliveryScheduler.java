@@ -0,0 +1,145 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link RunType#MAIN} deliveries from a single queue. Whenever there are pending deliveries, one drain is
+ * posted to the main thread, and that drain keeps delivering until either the queue is empty, or it has used up
+ * the frame budget. In that case it posts itself again and yields back to the main thread so that a burst of events
+ * can't hold up drawing.
+ */
+/*package*/ final class MainThreadDeliveryScheduler implements Runnable {
+  /*package*/ interface Clock {
+    long nanoTime();
+  }
+
+  /*package*/ static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /*package*/ static final long DEFAULT_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+  private final Executor mainThread;
+  private final Clock clock;
+
+  // guards pendingDeliveries
+  private final Object lock = new Object();
+  private final DeliveryQueue pendingDeliveries = new DeliveryQueue();
+  private final AtomicInteger pendingDeliveryCount = new AtomicInteger();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+  private volatile long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+  private final AtomicLong deferredDeliveryCount = new AtomicLong();
+  private final AtomicLong yieldCount = new AtomicLong();
+
+  /**
+   * @param mainThread runs things on the main thread
+   */
+  public MainThreadDeliveryScheduler(Executor mainThread, Clock clock) {
+    this.mainThread = mainThread;
+    this.clock = clock;
+  }
+
+  public void setFrameBudget(long frameBudget, TimeUnit unit) {
+    if(frameBudget <= 0) {
+      throw new IllegalArgumentException("The frame budget must be positive");
+    }
+    frameBudgetNanos = unit.toNanos(frameBudget);
+  }
+
+  public long getFrameBudgetNanos() {
+    return frameBudgetNanos;
+  }
+
+  /**
+   * Queues {@code delivery} to be run on the main thread. It is obtained from the {@link EventDelivery} pool if it
+   * isn't already an {@code EventDelivery}.
+   */
+  public void schedule(Runnable delivery) {
+    EventDelivery eventDelivery = delivery instanceof EventDelivery ? (EventDelivery) delivery : EventDelivery.obtain(delivery);
+    synchronized(lock) {
+      pendingDeliveries.offer(eventDelivery);
+    }
+    pendingDeliveryCount.incrementAndGet();
+    scheduleDrain();
+  }
+
+  /**
+   * @return how many deliveries are waiting to be run
+   */
+  public int getPendingDeliveryCount() {
+    return pendingDeliveryCount.get();
+  }
+
+  /**
+   * @return the total number of deliveries that were pushed to a later main thread message because a drain ran out of budget.
+   * A delivery that is pushed back more than once is counted each time.
+   */
+  public long getDeferredDeliveryCount() {
+    return deferredDeliveryCount.get();
+  }
+
+  /**
+   * @return how many times a drain ran out of budget and yielded back to the main thread
+   */
+  public long getYieldCount() {
+    return yieldCount.get();
+  }
+
+  @Override
+  public void run() {
+    long start = clock.nanoTime();
+    long frameBudgetNanos = this.frameBudgetNanos;
+
+    boolean drained = false;
+    try {
+      EventDelivery delivery;
+      while((delivery = poll()) != null) {
+        pendingDeliveryCount.decrementAndGet();
+        delivery.run();
+
+        if(clock.nanoTime() - start >= frameBudgetNanos) {
+          int deferred = pendingDeliveryCount.get();
+          if(deferred > 0) {
+            yieldCount.incrementAndGet();
+            deferredDeliveryCount.addAndGet(deferred);
+            return;
+          }
+        }
+      }
+      drained = true;
+    }
+    finally {
+      if(!drained) {
+        // we either yielded or a handler threw; drainScheduled is still set, so this stays the only drain
+        mainThread.execute(this);
+      }
+    }
+
+    drainScheduled.set(false);
+    // something could have been queued after the last poll, but before drainScheduled was cleared
+    if(pendingDeliveryCount.get() > 0) {
+      scheduleDrain();
+    }
+  }
+
+  private EventDelivery poll() {
+    synchronized(lock) {
+      return pendingDeliveries.poll();
+    }
+  }
+
+  private void scheduleDrain() {
+    if(drainScheduled.compareAndSet(false, true)) {
+      mainThread.execute(this);
+    }
+  }
+}
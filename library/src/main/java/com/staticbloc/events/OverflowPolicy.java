@@ -0,0 +1,34 @@
+package com.staticbloc.events;
+
+/**
+ * What happens when an {@link Event} is posted to a subscriber whose {@link RunType#BACKGROUND} queue (or an
+ * {@link EventStream} subscriber whose buffer) is full.
+ * @see Events#setBackgroundQueueLimit(int, OverflowPolicy)
+ * @see Events#stream(Class, int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+  /**
+   * The posting thread waits until there is room in the queue. A handler that posts to its own subscriber is never
+   * made to wait, since it would be waiting on itself.
+   * <br>
+   * <br>
+   * <b>Note:</b> Handlers that post to other subscribers can still end up waiting on each other if every thread
+   * of the background {@code ExecutorService} is waiting, so prefer the other policies for events that are posted
+   * from {@link RunType#BACKGROUND} handlers.
+   */
+  BLOCK,
+  /**
+   * The oldest queued delivery is dropped to make room.
+   */
+  DROP_OLDEST,
+  /**
+   * The new delivery is dropped.
+   */
+  DROP_NEWEST,
+  /**
+   * The oldest queued delivery to the same handler is dropped to make room, so a handler that falls behind skips
+   * some of its own events instead of making the subscriber's other handlers skip theirs. If nothing is queued
+   * for that handler, the oldest queued delivery is dropped.
+   */
+  CONFLATE
+}
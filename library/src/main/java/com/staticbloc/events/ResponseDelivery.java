@@ -0,0 +1,39 @@
+package com.staticbloc.events;
+
+/**
+ * Delivers a requested {@link Event} to a single {@link EventTarget} that {@link EventTarget#responds responds},
+ * and passes what it returned on to the {@link EventResponse}.
+ */
+/*package*/ final class ResponseDelivery implements Runnable {
+  private final EventTarget target;
+  private final Event event;
+  private final EventResponse<?> response;
+  private final long queuedAt;
+
+  public ResponseDelivery(EventTarget target, Event event, EventResponse<?> response, long queuedAt) {
+    this.target = target;
+    this.event = event;
+    this.response = response;
+    this.queuedAt = queuedAt;
+  }
+
+  @Override
+  public void run() {
+    Object result;
+    try {
+      result = target.dispatchForResult(event, queuedAt);
+    }
+    catch(RuntimeException | Error e) {
+      response.onHandlerFailure(e, target.runType);
+      throw e;
+    }
+    response.onHandlerResult(result, target.runType);
+  }
+
+  /**
+   * Called instead of {@link #run()} if the delivery is dropped, so that the response isn't left waiting for it.
+   */
+  public void discard() {
+    response.onHandlerResult(null, target.runType);
+  }
+}
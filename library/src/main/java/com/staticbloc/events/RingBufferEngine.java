@@ -0,0 +1,327 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A dispatch engine for {@link RunType#BACKGROUND} handlers that can be passed to {@link Events} in place of
+ * an {@code ExecutorService}, for very high volume streams of events.
+ * <br>
+ * <br>
+ * Posting claims a slot per background handler in a preallocated ring buffer (all of an event's slots with a single
+ * claim) instead of submitting tasks to an executor. A fixed set of consumer threads drain the ring in batches;
+ * every subscriber is assigned to one consumer, so each subscriber still receives its events one at a time, in the
+ * order they were posted. When the ring is full, posting waits for the slowest consumer to make room, so
+ * {@link Events#setBackgroundQueueLimit(int, OverflowPolicy)} doesn't apply to this engine.
+ * <br>
+ * <br>
+ * <b>Note:</b> A handler that posts background events while the ring is full waits for the consumers, including its
+ * own, so the ring should be sized so that handlers posting to it can't fill it.
+ */
+public final class RingBufferEngine {
+  public enum ProducerType {
+    /**
+     * Only one thread ever posts events. Claiming a slot is a plain increment.
+     */
+    SINGLE,
+    /**
+     * Any thread can post events. Claiming slots is an atomic add.
+     */
+    MULTI
+  }
+
+  /**
+   * How consumers wait for events to be posted, and how posting waits for room in a full ring.
+   */
+  public enum WaitStrategy {
+    /**
+     * Keeps checking. The lowest latency, but each consumer uses a whole core.
+     */
+    SPIN {
+      @Override
+      void idle() {}
+    },
+    /**
+     * Yields the thread between checks.
+     */
+    YIELD {
+      @Override
+      void idle() {
+        Thread.yield();
+      }
+    },
+    /**
+     * Parks the thread for up to 100 microseconds between checks. The least CPU, but the highest latency.
+     */
+    PARK {
+      @Override
+      void idle() {
+        LockSupport.parkNanos(PARK_NANOS);
+      }
+    };
+
+    private static final long PARK_NANOS = 100000;
+
+    abstract void idle();
+  }
+
+  private final int bufferSize;
+  private final int mask;
+  private final int indexShift;
+  private final ProducerType producerType;
+  private final WaitStrategy waitStrategy;
+
+  // the slots; written before a sequence is published and only read after it is. The consumer that owns a slot
+  // clears its target, event and task once it's delivered, so that they can be collected without waiting for the
+  // ring to come back around, and the other consumers only ever read its owner.
+  private final EventTarget[] targets;
+  private final Event[] events;
+  // a task that runs in place of the slot's delivery, like a delivery for a request that passes back the response
+  private final Runnable[] tasks;
+  private final int[] owners;
+
+  // SINGLE: the next sequence to claim, only touched by the producer
+  private long nextSequence;
+  // MULTI: the last claimed sequence
+  private final AtomicLong claimed = new AtomicLong(-1);
+  // SINGLE: the last published sequence
+  private final AtomicLong published = new AtomicLong(-1);
+  // MULTI: which lap of the ring each slot was last published for, since slots can be published out of order
+  private final AtomicIntegerArray publishedLaps;
+
+  private final Consumer[] consumers;
+  // the lowest consumer sequence that a producer saw, so it doesn't have to check every consumer for every claim
+  private final AtomicLong cachedGatingSequence = new AtomicLong(-1);
+
+  private volatile boolean running = true;
+
+  /**
+   * @param bufferSize how many deliveries the ring holds; must be a power of 2
+   * @param consumerCount how many consumer threads drain the ring
+   */
+  public RingBufferEngine(int bufferSize, int consumerCount, ProducerType producerType, WaitStrategy waitStrategy) {
+    if(bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+      throw new IllegalArgumentException("The buffer size must be a power of 2");
+    }
+    if(consumerCount <= 0) {
+      throw new IllegalArgumentException("There must be at least one consumer");
+    }
+
+    this.bufferSize = bufferSize;
+    this.mask = bufferSize - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+    this.producerType = producerType;
+    this.waitStrategy = waitStrategy;
+
+    targets = new EventTarget[bufferSize];
+    events = new Event[bufferSize];
+    tasks = new Runnable[bufferSize];
+    owners = new int[bufferSize];
+    publishedLaps = new AtomicIntegerArray(bufferSize);
+    for(int i = 0; i < bufferSize; i++) {
+      publishedLaps.set(i, -1);
+    }
+
+    consumers = new Consumer[consumerCount];
+    for(int i = 0; i < consumerCount; i++) {
+      consumers[i] = new Consumer(i);
+    }
+    ThreadFactory threadFactory = new ThreadFactory() {
+      private int threadCount;
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "events-ring-" + threadCount++);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    for(Consumer consumer : consumers) {
+      threadFactory.newThread(consumer).start();
+    }
+  }
+
+  /**
+   * Stops the consumers once they have delivered everything that was already posted.
+   */
+  public void shutdown() {
+    running = false;
+  }
+
+  /**
+   * Publishes {@code event} for each of {@code targets}.
+   */
+  /*package*/ void publish(EventTarget[] targets, Event event) {
+    int offset = 0;
+    while(offset < targets.length) {
+      int count = Math.min(targets.length - offset, bufferSize);
+      long high = claim(count);
+      long low = high - count + 1;
+      for(long sequence = low; sequence <= high; sequence++) {
+        int index = (int) sequence & mask;
+        EventTarget target = targets[offset++];
+        this.targets[index] = target;
+        this.events[index] = event;
+        owners[index] = getOwner(target);
+      }
+      publish(low, high);
+    }
+  }
+
+  /**
+   * Publishes a slot that delivers whatever is pending for the conflated {@code target} when it is consumed.
+   */
+  /*package*/ void publishPending(EventTarget target) {
+    long sequence = claim(1);
+    int index = (int) sequence & mask;
+    targets[index] = target;
+    events[index] = null;
+    owners[index] = getOwner(target);
+    publish(sequence, sequence);
+  }
+
+  /**
+   * Publishes a slot that runs {@code task} in place of a delivery to {@code target}, on the consumer that delivers
+   * to {@code target}, so it is run in order with the rest of that subscriber's deliveries.
+   */
+  /*package*/ void publishTask(EventTarget target, Runnable task) {
+    long sequence = claim(1);
+    int index = (int) sequence & mask;
+    targets[index] = target;
+    events[index] = null;
+    tasks[index] = task;
+    owners[index] = getOwner(target);
+    publish(sequence, sequence);
+  }
+
+  /**
+   * @return the index of the consumer that delivers to {@code target}, which is the same for every target of a
+   * subscription
+   */
+  private int getOwner(EventTarget target) {
+    return target.subscription.partition % consumers.length;
+  }
+
+  /**
+   * Claims {@code count} sequences, waiting until the consumers have made room for them.
+   * @return the highest claimed sequence
+   */
+  private long claim(int count) {
+    long high;
+    if(producerType == ProducerType.SINGLE) {
+      nextSequence += count;
+      high = nextSequence - 1;
+    }
+    else {
+      high = claimed.addAndGet(count);
+    }
+
+    long wrapPoint = high - bufferSize;
+    if(wrapPoint > cachedGatingSequence.get()) {
+      long gatingSequence;
+      while(wrapPoint > (gatingSequence = getMinimumConsumerSequence())) {
+        waitStrategy.idle();
+      }
+      cachedGatingSequence.set(gatingSequence);
+    }
+    return high;
+  }
+
+  private void publish(long low, long high) {
+    if(producerType == ProducerType.SINGLE) {
+      published.lazySet(high);
+    }
+    else {
+      for(long sequence = low; sequence <= high; sequence++) {
+        publishedLaps.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+      }
+    }
+  }
+
+  /**
+   * @return the highest sequence, starting at {@code from}, up to which everything has been published, or
+   * {@code from - 1} if {@code from} hasn't been published yet
+   */
+  private long getHighestPublishedSequence(long from) {
+    if(producerType == ProducerType.SINGLE) {
+      return published.get();
+    }
+
+    long sequence = from;
+    while(publishedLaps.get((int) sequence & mask) == (int) (sequence >>> indexShift)) {
+      sequence++;
+    }
+    return sequence - 1;
+  }
+
+  private long getMinimumConsumerSequence() {
+    long minimum = Long.MAX_VALUE;
+    for(Consumer consumer : consumers) {
+      minimum = Math.min(minimum, consumer.sequence.get());
+    }
+    return minimum;
+  }
+
+  private final class Consumer implements Runnable {
+    private final int consumerIndex;
+    // the last sequence this consumer is done with
+    private final AtomicLong sequence = new AtomicLong(-1);
+
+    public Consumer(int consumerIndex) {
+      this.consumerIndex = consumerIndex;
+    }
+
+    @Override
+    public void run() {
+      long next = 0;
+      while(true) {
+        long available = getHighestPublishedSequence(next);
+        if(available < next) {
+          if(!running) {
+            return;
+          }
+          waitStrategy.idle();
+          continue;
+        }
+
+        // deliver everything that's available as one batch, and only then let the producers reuse the slots
+        for(long s = next; s <= available; s++) {
+          int index = (int) s & mask;
+          if(owners[index] == consumerIndex) {
+            EventTarget target = targets[index];
+            Event event = events[index];
+            Runnable task = tasks[index];
+            targets[index] = null;
+            events[index] = null;
+            tasks[index] = null;
+            deliver(target, event, task);
+          }
+        }
+        sequence.lazySet(available);
+        next = available + 1;
+      }
+    }
+
+    private void deliver(EventTarget target, Event event, Runnable task) {
+      try {
+        if(task != null) {
+          task.run();
+        }
+        else if(event == null) {
+          target.run();
+        }
+        else {
+          target.dispatch(event, EventTarget.QUEUED_AT_UNKNOWN);
+        }
+      }
+      catch(Throwable e) {
+        // the consumer has to keep going, even after an Error, or its sequence would stop moving and every post
+        // would block once the ring fills up
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+  }
+}
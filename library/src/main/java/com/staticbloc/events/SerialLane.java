@@ -0,0 +1,174 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs one subscriber's {@link RunType#BACKGROUND} deliveries in order, on a shared {@link Executor}.
+ * At most one task per lane is ever submitted to the executor, so different subscribers' deliveries can run
+ * in parallel while each subscriber still receives them one at a time, in the order they were posted.
+ * <br>
+ * <br>
+ * The number of queued deliveries is capped by a {@link BackgroundQueueLimit}, which decides what to do with a
+ * delivery that doesn't fit.
+ */
+/*package*/ final class SerialLane implements Runnable {
+  // how many deliveries a lane runs before giving its executor thread to other lanes
+  private static final int MAX_DELIVERIES_PER_RUN = 64;
+
+  private final Executor executor;
+  private final BackgroundQueueLimit limit;
+
+  // guards pendingDeliveries and blockedPosterCount, and is what blocked posters wait on
+  private final Object lock = new Object();
+  private final DeliveryQueue pendingDeliveries = new DeliveryQueue();
+  private int blockedPosterCount;
+  // written while holding the lock, so it can be read without it
+  private volatile int depth;
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  // the thread that is running this lane's deliveries, which must never block on this lane
+  private volatile Thread runningThread;
+
+  public SerialLane(Executor executor) {
+    this(executor, new BackgroundQueueLimit());
+  }
+
+  public SerialLane(Executor executor, BackgroundQueueLimit limit) {
+    this.executor = executor;
+    this.limit = limit;
+  }
+
+  /**
+   * Queues {@code delivery}, which is obtained from the {@link EventDelivery} pool if it isn't already an
+   * {@code EventDelivery}.
+   */
+  public void enqueue(Runnable delivery) {
+    EventDelivery eventDelivery = delivery instanceof EventDelivery ? (EventDelivery) delivery : EventDelivery.obtain(delivery);
+
+    boolean queued;
+    synchronized(lock) {
+      queued = offer(eventDelivery);
+    }
+
+    if(queued) {
+      schedule();
+    }
+    else {
+      eventDelivery.discard();
+      limit.onDeliveryDropped();
+    }
+  }
+
+  /**
+   * @return how many deliveries are waiting to be run
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Queues {@code delivery}, applying the {@link OverflowPolicy} if the lane is full. Must hold the lock.
+   * @return {@code false} if {@code delivery} should be dropped
+   */
+  private boolean offer(EventDelivery delivery) {
+    while(pendingDeliveries.size() >= limit.getCapacity()) {
+      OverflowPolicy overflowPolicy = limit.getOverflowPolicy();
+      if(overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+        return false;
+      }
+      else if(overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+        drop(pendingDeliveries.poll());
+      }
+      else if(overflowPolicy == OverflowPolicy.CONFLATE) {
+        EventDelivery older = pendingDeliveries.removeFirstFor(delivery.getTarget());
+        drop(older != null ? older : pendingDeliveries.poll());
+      }
+      else if(Thread.currentThread() == runningThread) {
+        break;
+      }
+      else if(!awaitCapacity()) {
+        return false;
+      }
+    }
+
+    pendingDeliveries.offer(delivery);
+    depth = pendingDeliveries.size();
+    return true;
+  }
+
+  private void drop(EventDelivery delivery) {
+    delivery.discard();
+    limit.onDeliveryDropped();
+  }
+
+  /**
+   * Waits for the lane to run a delivery. Must hold the lock.
+   * @return {@code false} if the posting thread was interrupted while it waited
+   */
+  private boolean awaitCapacity() {
+    blockedPosterCount++;
+    try {
+      lock.wait();
+      return true;
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    finally {
+      blockedPosterCount--;
+    }
+  }
+
+  private EventDelivery poll() {
+    synchronized(lock) {
+      EventDelivery delivery = pendingDeliveries.poll();
+      if(delivery != null) {
+        depth = pendingDeliveries.size();
+        if(blockedPosterCount > 0) {
+          lock.notifyAll();
+        }
+      }
+      return delivery;
+    }
+  }
+
+  @Override
+  public void run() {
+    boolean drained = false;
+    runningThread = Thread.currentThread();
+    try {
+      for(int i = 0; i < MAX_DELIVERIES_PER_RUN; i++) {
+        EventDelivery delivery = poll();
+        if(delivery == null) {
+          drained = true;
+          break;
+        }
+        delivery.run();
+      }
+    }
+    finally {
+      runningThread = null;
+      if(!drained) {
+        // there's more to run (or a handler threw); scheduled is still set, so this stays the only task for the lane
+        executor.execute(this);
+      }
+    }
+
+    if(drained) {
+      scheduled.set(false);
+      // something could have been enqueued after the last poll, but before scheduled was cleared
+      if(depth > 0) {
+        schedule();
+      }
+    }
+  }
+
+  private void schedule() {
+    if(scheduled.compareAndSet(false, true)) {
+      executor.execute(this);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.staticbloc.events;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The latest sticky {@link Event} of each class, bounded to a maximum number of classes. When the bound is hit,
+ * the class whose sticky event was posted longest ago is evicted.
+ */
+/*package*/ final class StickyEvents {
+  /*package*/ static final int DEFAULT_MAX_SIZE = 64;
+
+  // insertion ordered, and re-inserted on every put, so the eldest entry is the least recently posted one
+  private final LinkedHashMap<Class<? extends Event>, Event> stickyEvents = new LinkedHashMap<>();
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  public synchronized void put(Event event) {
+    Class<? extends Event> eventClass = event.getClass();
+    stickyEvents.remove(eventClass);
+    stickyEvents.put(eventClass, event);
+    trim();
+  }
+
+  public synchronized Event get(Class<? extends Event> eventClass) {
+    return stickyEvents.get(eventClass);
+  }
+
+  public synchronized Event remove(Class<? extends Event> eventClass) {
+    return stickyEvents.remove(eventClass);
+  }
+
+  /**
+   * Removes {@code event} only if it is still the sticky event for its class.
+   * @return whether {@code event} was removed
+   */
+  public synchronized boolean remove(Event event) {
+    Class<? extends Event> eventClass = event.getClass();
+    if(stickyEvents.get(eventClass) == event) {
+      stickyEvents.remove(eventClass);
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized void clear() {
+    stickyEvents.clear();
+  }
+
+  public synchronized int size() {
+    return stickyEvents.size();
+  }
+
+  public synchronized void setMaxSize(int maxSize) {
+    if(maxSize < 0) {
+      throw new IllegalArgumentException("The maximum number of sticky events can't be negative");
+    }
+    this.maxSize = maxSize;
+    trim();
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<Class<? extends Event>, Event>> eldest = stickyEvents.entrySet().iterator();
+    while(stickyEvents.size() > maxSize && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+}
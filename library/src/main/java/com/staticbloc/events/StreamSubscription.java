@@ -0,0 +1,190 @@
+package com.staticbloc.events;
+
+import org.reactivestreams.Subscriber;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single {@link Subscriber}'s subscription to an {@link EventStream}. It is also the dispatcher that is routed
+ * for it, with a single {@link RunType#DEFAULT} handler that buffers the event and delivers what was requested.
+ * <br>
+ * <br>
+ * Deliveries are made by whichever thread gets to {@link #drain()} first, while the others only make sure that it
+ * drains again, so the subscriber's {@code onNext} and {@code onError} are never called concurrently or reentrantly,
+ * as the Reactive Streams spec requires. Nothing is delivered until {@code onSubscribe} returns.
+ */
+/*package*/ final class StreamSubscription<E extends Event> extends EventDispatcher
+    implements org.reactivestreams.Subscription {
+  private final EventStream<E> stream;
+  private final Subscriber<? super E> subscriber;
+  private final Set<Class<? extends Event>> dispatchableEvents;
+
+  // guarded by itself
+  private final ArrayDeque<E> buffer = new ArrayDeque<>();
+  private final AtomicLong requested = new AtomicLong();
+  // how many times drain was called while a thread was already draining; starts at 1 so that start() drains
+  // whatever was requested in onSubscribe once it returns
+  private final AtomicInteger drainRequests = new AtomicInteger(1);
+  private volatile boolean cancelled;
+  // the error to deliver through the drain loop, once it's set
+  private final AtomicReference<Throwable> error = new AtomicReference<>();
+  // only accessed while draining
+  private boolean errorDelivered;
+
+  // the route subscription, once it has been started; guarded by this
+  private Subscription routeSubscription;
+
+  public StreamSubscription(EventStream<E> stream, Subscriber<? super E> subscriber) {
+    this.stream = stream;
+    this.subscriber = subscriber;
+    this.dispatchableEvents = Collections.<Class<? extends Event>>singleton(stream.getEventClass());
+  }
+
+  /**
+   * Starts routing events to this subscription, unless it was cancelled in {@code onSubscribe}.
+   */
+  public void start() {
+    Subscription routeSubscription = stream.getEvents().subscribeStream(this, subscriber.getClass());
+    synchronized(this) {
+      this.routeSubscription = routeSubscription;
+    }
+    // it may have been cancelled while it was being subscribed
+    if(cancelled) {
+      unsubscribe();
+    }
+    drainLoop();
+  }
+
+  @Override
+  public void request(long n) {
+    if(n <= 0) {
+      // requests after a cancel are ignored (rule 3.6)
+      if(!cancelled && error.compareAndSet(null,
+          new IllegalArgumentException("A subscriber has to request a positive number of events (rule 3.9)"))) {
+        cancel();
+        drain();
+      }
+      return;
+    }
+
+    long current;
+    long updated;
+    do {
+      current = requested.get();
+      updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+    } while(!requested.compareAndSet(current, updated));
+
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    if(cancelled) {
+      return;
+    }
+    cancelled = true;
+    unsubscribe();
+    synchronized(buffer) {
+      buffer.clear();
+    }
+  }
+
+  private void unsubscribe() {
+    Subscription routeSubscription;
+    synchronized(this) {
+      routeSubscription = this.routeSubscription;
+      this.routeSubscription = null;
+    }
+    if(routeSubscription != null) {
+      stream.getEvents().unsubscribeStream(routeSubscription);
+    }
+  }
+
+  @Override
+  public void dispatchEvent(int eventId, Event event) {
+    if(cancelled) {
+      return;
+    }
+
+    E streamEvent = stream.getEventClass().cast(event);
+    synchronized(buffer) {
+      if(buffer.size() >= stream.getBufferCapacity()) {
+        stream.onEventDropped();
+        if(stream.getOverflowPolicy() == OverflowPolicy.DROP_NEWEST) {
+          return;
+        }
+        // DROP_OLDEST, or CONFLATE, which is the same thing for a stream since it only has the one handler
+        buffer.poll();
+      }
+      buffer.offer(streamEvent);
+    }
+
+    drain();
+  }
+
+  private void drain() {
+    if(drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    drainLoop();
+  }
+
+  // must only be called by the thread that took drainRequests from 0
+  private void drainLoop() {
+    int missed = 1;
+    do {
+      Throwable error = this.error.get();
+      if(error != null && !errorDelivered) {
+        errorDelivered = true;
+        subscriber.onError(error);
+      }
+
+      long requested = this.requested.get();
+      long delivered = 0;
+      while(delivered != requested && !cancelled) {
+        E next;
+        synchronized(buffer) {
+          next = buffer.poll();
+        }
+        if(next == null) {
+          break;
+        }
+
+        try {
+          subscriber.onNext(next);
+        }
+        catch(RuntimeException e) {
+          // onNext isn't allowed to throw (rule 2.13), so the subscriber is considered broken
+          cancel();
+          throw e;
+        }
+        delivered++;
+      }
+
+      if(delivered != 0 && requested != Long.MAX_VALUE) {
+        this.requested.addAndGet(-delivered);
+      }
+      missed = drainRequests.addAndGet(-missed);
+    } while(missed != 0);
+  }
+
+  @Override
+  public Set<Class<? extends Event>> getDispatchableEvents() {
+    return dispatchableEvents;
+  }
+
+  @Override
+  public int getEventId(Class<? extends Event> eventClass) {
+    return stream.getEventClass() == eventClass ? 0 : -1;
+  }
+
+  @Override
+  public RunType getRunType(int eventId) {
+    return RunType.DEFAULT;
+  }
+}
@@ -0,0 +1,37 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can increment without contending on a single value. Each thread increments one of
+ * several stripes (spread out so that they don't share a cache line), and reading the counter adds them up.
+ */
+/*package*/ final class StripedCounter {
+  // longs per stripe, so that each stripe is on its own 64 byte cache line
+  private static final int PADDING = 8;
+  private static final int STRIPE_COUNT = stripeCount();
+
+  private final AtomicLongArray stripes = new AtomicLongArray(STRIPE_COUNT * PADDING);
+
+  private static int stripeCount() {
+    int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+    return Math.max(1, Math.min(stripes, 64));
+  }
+
+  public void add(long delta) {
+    int stripe = (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+    stripes.addAndGet(stripe * PADDING, delta);
+  }
+
+  public void increment() {
+    add(1);
+  }
+
+  public long get() {
+    long sum = 0;
+    for(int i = 0; i < STRIPE_COUNT; i++) {
+      sum += stripes.get(i * PADDING);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,71 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything {@link Events} keeps for a single subscriber (or {@link Events.OnEventListener}) for as long as it is
+ * subscribed.
+ */
+/*package*/ final class Subscription {
+  private static final AtomicInteger nextPartition = new AtomicInteger();
+
+  public final EventDispatcher dispatcher;
+  // what the monitor is told the handlers belong to
+  public final Class<?> subscriberClass;
+  // may be null, for subscriptions that are never monitored
+  public final Instrumentation instrumentation;
+  // spreads subscriptions evenly over the consumers of a RingBufferEngine
+  public final int partition = nextPartition.getAndIncrement() & Integer.MAX_VALUE;
+
+  private final Executor backgroundExecutor;
+  private final BackgroundQueueLimit backgroundQueueLimit;
+  private volatile SerialLane backgroundLane;
+
+  // indexed by event id, and only set for RunType.EXECUTOR and RunType.VIRTUAL_THREAD handlers
+  private final Executor[] handlerExecutors;
+
+  public Subscription(EventDispatcher dispatcher, Class<?> subscriberClass, Executor backgroundExecutor,
+                      BackgroundQueueLimit backgroundQueueLimit, Instrumentation instrumentation, Executor[] handlerExecutors) {
+    this.dispatcher = dispatcher;
+    this.subscriberClass = subscriberClass;
+    this.instrumentation = instrumentation;
+    this.backgroundExecutor = backgroundExecutor;
+    this.backgroundQueueLimit = backgroundQueueLimit;
+    this.handlerExecutors = handlerExecutors;
+  }
+
+  /**
+   * @return how many {@link RunType#BACKGROUND} deliveries are waiting for this subscriber
+   */
+  public int getBackgroundQueueDepth() {
+    SerialLane backgroundLane = this.backgroundLane;
+    return backgroundLane == null ? 0 : backgroundLane.getDepth();
+  }
+
+  /**
+   * @return the executor that was resolved for the handler with the id {@code eventId} when it subscribed, or
+   * {@code null} if it doesn't run on one of its own
+   */
+  public Executor getHandlerExecutor(int eventId) {
+    return handlerExecutors[eventId];
+  }
+
+  /**
+   * @return the lane for this subscriber's {@link RunType#BACKGROUND} deliveries, which is created the first time
+   * it is needed so that subscribers that never get a background delivery don't pay for one
+   */
+  public SerialLane getBackgroundLane() {
+    SerialLane backgroundLane = this.backgroundLane;
+    if(backgroundLane == null) {
+      synchronized(this) {
+        backgroundLane = this.backgroundLane;
+        if(backgroundLane == null) {
+          backgroundLane = new SerialLane(backgroundExecutor, backgroundQueueLimit);
+          this.backgroundLane = backgroundLane;
+        }
+      }
+    }
+    return backgroundLane;
+  }
+}
@@ -0,0 +1,40 @@
+package com.staticbloc.events;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link Executor} for {@link RunType#VIRTUAL_THREAD} handlers. It starts a new virtual thread for every task
+ * when the runtime has them, which is looked up by name since they can't be referenced from here. Otherwise it
+ * falls back to a cached pool of daemon threads.
+ */
+/*package*/ final class VirtualThreads {
+  private static class Singleton {
+    public static final Executor instance = createExecutor();
+  }
+
+  private VirtualThreads() {}
+
+  public static Executor getExecutor() {
+    return Singleton.instance;
+  }
+
+  private static Executor createExecutor() {
+    try {
+      return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch (Exception e) {
+      final AtomicInteger threadCount = new AtomicInteger();
+      return Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "events-virtual-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.staticbloc.events;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchTest {
+  private static final int BATCH_SIZE = 100;
+
+  public static class Message implements Event {
+    public final int id;
+
+    public Message(int id) {
+      this.id = id;
+    }
+  }
+
+  public static class OtherMessage extends Message {
+    public OtherMessage(int id) {
+      super(id);
+    }
+  }
+
+  public static class ConflatedSubscriber {
+    public final List<Integer> ids = Collections.synchronizedList(new ArrayList<Integer>());
+
+    @EventHandler(runType = RunType.MAIN, conflate = true)
+    public void onMessage(Message message) {
+      ids.add(message.id);
+    }
+  }
+
+  private static class Recorder implements Events.OnEventListener<Message> {
+    private final List<Integer> ids = Collections.synchronizedList(new ArrayList<Integer>());
+    private final CountDownLatch done;
+
+    private Recorder(int expectedCount) {
+      this.done = new CountDownLatch(expectedCount);
+    }
+
+    @Override
+    public void onEvent(Message message) {
+      ids.add(message.id);
+      done.countDown();
+    }
+
+    private void await() throws InterruptedException {
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+  }
+
+  private ExecutorService executor;
+  private EventLoopMainThread mainThread;
+  private Events events;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    mainThread = new EventLoopMainThread();
+    events = new Events(executor, mainThread);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    mainThread.shutdown();
+  }
+
+  private static List<Integer> ids() {
+    List<Integer> ids = new ArrayList<>();
+    for(int i = 0; i < BATCH_SIZE; i++) {
+      ids.add(i);
+    }
+    return ids;
+  }
+
+  private void commitBatch() {
+    Events.Batch batch = events.beginBatch();
+    for(int i = 0; i < BATCH_SIZE; i++) {
+      // a mix of classes, so that the batch has more than one route
+      batch.post(i % 3 == 0 ? new OtherMessage(i) : new Message(i));
+    }
+    batch.commit();
+  }
+
+  private <T> T onMainThread(Callable<T> callable) throws Exception {
+    FutureTask<T> task = new FutureTask<>(callable);
+    mainThread.execute(task);
+    return task.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testEachSubscriberGetsTheBatchInOrder() throws InterruptedException {
+    Recorder background = new Recorder(BATCH_SIZE);
+    Recorder main = new Recorder(BATCH_SIZE);
+    Recorder posting = new Recorder(BATCH_SIZE);
+    events.subscribe(Message.class, background, RunType.BACKGROUND);
+    events.subscribe(Message.class, main, RunType.MAIN);
+    events.subscribe(Message.class, posting, RunType.DEFAULT);
+
+    commitBatch();
+
+    // DEFAULT listeners are called before commit returns
+    assertEquals(ids(), posting.ids);
+    background.await();
+    main.await();
+    assertEquals(ids(), background.ids);
+    assertEquals(ids(), main.ids);
+  }
+
+  @Test
+  public void testEachSubscriberGetsTheBatchInOrderOnTheMainThread() throws Exception {
+    final Recorder background = new Recorder(BATCH_SIZE);
+    final Recorder main = new Recorder(BATCH_SIZE);
+    final Recorder posting = new Recorder(BATCH_SIZE);
+    events.subscribe(Message.class, background, RunType.BACKGROUND);
+    events.subscribe(Message.class, main, RunType.MAIN);
+    events.subscribe(Message.class, posting, RunType.DEFAULT);
+
+    List<List<Integer>> delivered = onMainThread(new Callable<List<List<Integer>>>() {
+      @Override
+      public List<List<Integer>> call() {
+        commitBatch();
+        // both run right here when the batch is committed on the main thread
+        return Arrays.<List<Integer>>asList(new ArrayList<>(main.ids), new ArrayList<>(posting.ids));
+      }
+    });
+
+    assertEquals(ids(), delivered.get(0));
+    assertEquals(ids(), delivered.get(1));
+    background.await();
+    assertEquals(ids(), background.ids);
+  }
+
+  @Test
+  public void testConflatedMainThreadHandlersGetTheLatestEventOnceOnTheMainThread() throws Exception {
+    final ConflatedSubscriber subscriber = new ConflatedSubscriber();
+    events.subscribe(subscriber);
+
+    List<Integer> delivered = onMainThread(new Callable<List<Integer>>() {
+      @Override
+      public List<Integer> call() {
+        commitBatch();
+        return new ArrayList<>(subscriber.ids);
+      }
+    });
+
+    assertEquals(Collections.singletonList(BATCH_SIZE - 1), delivered);
+  }
+}
@@ -0,0 +1,123 @@
+package com.staticbloc.events;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConsumableEventTest {
+  public static class Tap extends ConsumableEvent {}
+
+  public static class ConsumingSubscriber {
+    public final List<Tap> taps = Collections.synchronizedList(new ArrayList<Tap>());
+
+    @EventHandler(runType = RunType.DEFAULT, priority = 10)
+    public void onTap(Tap tap) {
+      taps.add(tap);
+      tap.consume();
+    }
+  }
+
+  private static class Recorder implements Events.OnEventListener<Tap> {
+    private final List<Tap> taps = Collections.synchronizedList(new ArrayList<Tap>());
+
+    @Override
+    public void onEvent(Tap tap) {
+      taps.add(tap);
+    }
+  }
+
+  private ExecutorService executor;
+  private EventLoopMainThread mainThread;
+  private Events events;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    mainThread = new EventLoopMainThread();
+    events = new Events(executor, mainThread);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    mainThread.shutdown();
+  }
+
+  private void onMainThread(Runnable runnable) throws Exception {
+    FutureTask<Void> task = new FutureTask<>(runnable, null);
+    mainThread.execute(task);
+    task.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testAHigherPriorityPostingThreadHandlerCanConsumeAnEventBeforeMainThreadHandlersOnTheMainThread()
+      throws Exception {
+    ConsumingSubscriber subscriber = new ConsumingSubscriber();
+    Recorder main = new Recorder();
+    events.subscribe(Tap.class, main, RunType.MAIN);
+    events.subscribe(subscriber);
+
+    final Tap tap = new Tap();
+    onMainThread(new Runnable() {
+      @Override
+      public void run() {
+        events.post(tap);
+      }
+    });
+
+    assertEquals(Collections.singletonList(tap), subscriber.taps);
+    assertTrue(main.taps.isEmpty());
+  }
+
+  @Test
+  public void testAHigherPriorityPostingThreadHandlerCanConsumeABatchBeforeMainThreadHandlersOnTheMainThread()
+      throws Exception {
+    ConsumingSubscriber subscriber = new ConsumingSubscriber();
+    Recorder main = new Recorder();
+    events.subscribe(Tap.class, main, RunType.MAIN);
+    events.subscribe(subscriber);
+
+    final List<Tap> taps = Arrays.asList(new Tap(), new Tap());
+    onMainThread(new Runnable() {
+      @Override
+      public void run() {
+        events.postAll(taps);
+      }
+    });
+
+    assertEquals(taps, subscriber.taps);
+    assertTrue(main.taps.isEmpty());
+  }
+
+  @Test
+  public void testMainThreadHandlersStillGetTheEventsThatArentConsumedOnTheMainThread() throws Exception {
+    final Recorder main = new Recorder();
+    final Recorder posting = new Recorder();
+    events.subscribe(Tap.class, main, RunType.MAIN);
+    events.subscribe(Tap.class, posting, RunType.DEFAULT);
+
+    final Tap tap = new Tap();
+    onMainThread(new Runnable() {
+      @Override
+      public void run() {
+        events.post(tap);
+      }
+    });
+
+    assertEquals(Collections.singletonList(tap), main.taps);
+    assertEquals(Collections.singletonList(tap), posting.taps);
+  }
+}
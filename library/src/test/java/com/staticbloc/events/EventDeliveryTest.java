@@ -0,0 +1,90 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventDeliveryTest {
+  private static final Runnable NOTHING = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  @Test
+  public void testADeliveryThatRanOnAnotherThreadIsObtainedAgain() throws InterruptedException {
+    final EventDelivery delivery = EventDelivery.obtain(NOTHING);
+    Thread thread = new Thread(delivery);
+    thread.start();
+    thread.join();
+
+    // the pool is shared with the other tests, so the delivery may be under others that were recycled before it
+    List<EventDelivery> obtained = new ArrayList<>();
+    boolean found = false;
+    for(int i = 0; i < 1024 && !found; i++) {
+      EventDelivery next = EventDelivery.obtain(NOTHING);
+      obtained.add(next);
+      found = next == delivery;
+    }
+    assertTrue(found);
+    for(EventDelivery next : obtained) {
+      next.discard();
+    }
+  }
+
+  @Test
+  public void testADeliveryIsNeverObtainedTwiceAtOnce() throws InterruptedException {
+    final Map<EventDelivery, Boolean> inUse = Collections.synchronizedMap(new IdentityHashMap<EventDelivery, Boolean>());
+    final AtomicBoolean obtainedTwice = new AtomicBoolean();
+    final CountDownLatch done = new CountDownLatch(4);
+
+    // each thread recycles some of its deliveries itself and hands the rest to the next thread to recycle
+    final List<List<EventDelivery>> handoffs = new ArrayList<>();
+    for(int i = 0; i < 4; i++) {
+      handoffs.add(Collections.synchronizedList(new ArrayList<EventDelivery>()));
+    }
+    for(int i = 0; i < 4; i++) {
+      final List<EventDelivery> mine = handoffs.get(i);
+      final List<EventDelivery> next = handoffs.get((i + 1) % 4);
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for(int j = 0; j < 20000; j++) {
+            EventDelivery delivery = EventDelivery.obtain(NOTHING);
+            if(inUse.put(delivery, Boolean.TRUE) != null) {
+              obtainedTwice.set(true);
+            }
+            if(j % 2 == 0) {
+              inUse.remove(delivery);
+              delivery.discard();
+            }
+            else {
+              next.add(delivery);
+            }
+
+            synchronized(mine) {
+              for(EventDelivery handedOff : mine) {
+                inUse.remove(handedOff);
+                handedOff.run();
+              }
+              mine.clear();
+            }
+          }
+          done.countDown();
+        }
+      }).start();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertFalse(obtainedTwice.get());
+  }
+}
@@ -0,0 +1,69 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class EventDispatcherFactoriesTest {
+  public static class Ping implements Event {}
+
+  public static class Subscriber {
+    public final List<Ping> received = new ArrayList<>();
+
+    @EventHandler(runType = RunType.DEFAULT)
+    public void onPing(Ping ping) {
+      received.add(ping);
+    }
+  }
+
+  public static class Snake_Subscriber {
+    public final List<Ping> received = new ArrayList<>();
+
+    @EventHandler(runType = RunType.DEFAULT)
+    public void onPing(Ping ping) {
+      received.add(ping);
+    }
+  }
+
+  public static class NotASubscriber {}
+
+  private static void assertDispatchesTo(EventDispatcher dispatcher, List<Ping> received) {
+    assertNotNull(dispatcher);
+    Ping ping = new Ping();
+    dispatcher.dispatchEvent(dispatcher.getEventId(Ping.class), ping);
+    assertEquals(1, received.size());
+    assertEquals(ping, received.get(0));
+  }
+
+  @Test
+  public void testFindsTheGeneratedFactoryForTheSubscriberClass() {
+    EventDispatcherFactories factories = new EventDispatcherFactories();
+
+    Subscriber first = new Subscriber();
+    assertDispatchesTo(factories.createDispatcher(first), first.received);
+    // the second one comes from the cached factory
+    Subscriber second = new Subscriber();
+    assertDispatchesTo(factories.createDispatcher(second), second.received);
+  }
+
+  @Test
+  public void testUnderscoresInTheSubscriberClassNameAreEscaped() {
+    EventDispatcherFactories factories = new EventDispatcherFactories();
+
+    Snake_Subscriber subscriber = new Snake_Subscriber();
+    assertDispatchesTo(factories.createDispatcher(subscriber), subscriber.received);
+  }
+
+  @Test
+  public void testClassesWithoutAFactoryDontGetADispatcher() {
+    EventDispatcherFactories factories = new EventDispatcherFactories();
+
+    assertNull(factories.createDispatcher(new NotASubscriber()));
+    assertNull(factories.createDispatcher(new Object() {}));
+  }
+}
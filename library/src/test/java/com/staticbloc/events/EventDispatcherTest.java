@@ -0,0 +1,90 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventDispatcherTest {
+  private static class FirstEvent implements Event {}
+  private static class SecondEvent implements Event {}
+
+  /**
+   * Pretends to have {@code handlerCount} handlers, with {@link FirstEvent} and {@link SecondEvent} as the last two.
+   */
+  private static class ManyHandlersDispatcher extends EventDispatcher {
+    private final List<Class<? extends Event>> eventTypes = new ArrayList<>();
+
+    public ManyHandlersDispatcher(int handlerCount) {
+      for(int i = 0; i < handlerCount - 2; i++) {
+        eventTypes.add(Event.class);
+      }
+      eventTypes.add(FirstEvent.class);
+      eventTypes.add(SecondEvent.class);
+    }
+
+    public boolean isBlocked(Class<? extends Event> eventClass) {
+      return isDispatchBlocked(getEventId(eventClass));
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {}
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      // not really a set, but only its size matters here
+      return new AbstractSet<Class<? extends Event>>() {
+        @Override
+        public Iterator<Class<? extends Event>> iterator() {
+          return eventTypes.iterator();
+        }
+
+        @Override
+        public int size() {
+          return eventTypes.size();
+        }
+      };
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return eventTypes.lastIndexOf(eventClass);
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return RunType.DEFAULT;
+    }
+  }
+
+  @Test
+  public void testBlockingOnlyAffectsThatHandler() {
+    ManyHandlersDispatcher dispatcher = new ManyHandlersDispatcher(2);
+    assertFalse(dispatcher.isBlocked(FirstEvent.class));
+
+    dispatcher.blockDispatch(FirstEvent.class);
+    assertTrue(dispatcher.isBlocked(FirstEvent.class));
+    assertFalse(dispatcher.isBlocked(SecondEvent.class));
+
+    dispatcher.unblockDispatch(FirstEvent.class);
+    assertFalse(dispatcher.isBlocked(FirstEvent.class));
+  }
+
+  @Test
+  public void testBlockingHandlersPastTheFirst64() {
+    ManyHandlersDispatcher dispatcher = new ManyHandlersDispatcher(130);
+
+    dispatcher.blockDispatch(SecondEvent.class);
+    assertTrue(dispatcher.isBlocked(SecondEvent.class));
+    assertFalse(dispatcher.isBlocked(FirstEvent.class));
+
+    dispatcher.unblockDispatch(SecondEvent.class);
+    assertFalse(dispatcher.isBlocked(SecondEvent.class));
+  }
+}
@@ -0,0 +1,32 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventLoopMainThreadTest {
+  @Test
+  public void testOnlyTheLoopThreadIsTheMainThread() throws InterruptedException {
+    final EventLoopMainThread mainThread = new EventLoopMainThread();
+    final AtomicBoolean wasMainThread = new AtomicBoolean();
+    final CountDownLatch ran = new CountDownLatch(1);
+
+    mainThread.execute(new Runnable() {
+      @Override
+      public void run() {
+        wasMainThread.set(mainThread.isCurrentThread());
+        ran.countDown();
+      }
+    });
+
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertTrue(wasMainThread.get());
+    assertFalse(mainThread.isCurrentThread());
+    mainThread.shutdown();
+  }
+}
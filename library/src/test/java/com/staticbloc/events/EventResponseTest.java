@@ -0,0 +1,159 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EventResponseTest {
+  /**
+   * Collects what is posted to it instead of running it.
+   */
+  private static class QueueingMainThread implements MainThread {
+    private final List<Runnable> posted = new ArrayList<>();
+    private boolean isCurrentThread;
+
+    @Override
+    public void execute(Runnable r) {
+      posted.add(r);
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+      return isCurrentThread;
+    }
+  }
+
+  private static class RecordingCallback implements EventResponse.Callback<String> {
+    private final List<Object> results = new ArrayList<>();
+
+    @Override
+    public void onResponse(String response) {
+      results.add(response);
+    }
+
+    @Override
+    public void onFailure(Throwable failure) {
+      results.add(failure);
+    }
+  }
+
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  @Test
+  public void testFirstNonNullResultIsTheResponse() throws Exception {
+    EventResponse<String> response = new EventResponse<>(String.class, 3, new QueueingMainThread(), DIRECT);
+    response.onHandlerResult(null, RunType.DEFAULT);
+    assertFalse(response.isDone());
+
+    response.onHandlerResult("first", RunType.DEFAULT);
+    response.onHandlerResult("second", RunType.DEFAULT);
+    assertTrue(response.isDone());
+    assertEquals("first", response.get());
+  }
+
+  @Test
+  public void testNullOnceEveryResponderReturnedNull() throws Exception {
+    EventResponse<String> response = new EventResponse<>(String.class, 2, new QueueingMainThread(), DIRECT);
+    response.onHandlerResult(null, RunType.DEFAULT);
+    try {
+      response.get(1, TimeUnit.MILLISECONDS);
+      fail();
+    }
+    catch(TimeoutException expected) {}
+
+    response.onHandlerResult(null, RunType.DEFAULT);
+    assertNull(response.get(1, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testNoRespondersIsDoneRightAway() throws Exception {
+    EventResponse<String> response = new EventResponse<>(String.class, 0, new QueueingMainThread(), DIRECT);
+    assertTrue(response.isDone());
+    assertNull(response.get());
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    EventResponse<String> response = new EventResponse<>(String.class, 1, new QueueingMainThread(), DIRECT);
+    RuntimeException failure = new RuntimeException();
+    response.onHandlerFailure(failure, RunType.DEFAULT);
+    try {
+      response.get();
+      fail();
+    }
+    catch(ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+  }
+
+  @Test
+  public void testAResultOfTheWrongTypeFailsTheResponse() throws Exception {
+    RecordingCallback callback = new RecordingCallback();
+    EventResponse<String> response = new EventResponse<>(String.class, 2, new QueueingMainThread(), DIRECT);
+    response.setCallback(callback, RunType.DEFAULT);
+    response.onHandlerResult(42, RunType.DEFAULT);
+    response.onHandlerResult("late", RunType.DEFAULT);
+
+    assertEquals(1, callback.results.size());
+    assertTrue(callback.results.get(0) instanceof ClassCastException);
+    try {
+      response.get();
+      fail();
+    }
+    catch(ExecutionException e) {
+      assertTrue(e.getCause() instanceof ClassCastException);
+    }
+  }
+
+  @Test
+  public void testMainThreadCallbackOnlyHopsWhenItHasTo() {
+    QueueingMainThread mainThread = new QueueingMainThread();
+    RecordingCallback callback = new RecordingCallback();
+
+    EventResponse<String> fromMain = new EventResponse<>(String.class, 1, mainThread, DIRECT);
+    fromMain.setCallback(callback, RunType.MAIN);
+    mainThread.isCurrentThread = true;
+    fromMain.onHandlerResult("main", RunType.MAIN);
+    assertEquals(1, callback.results.size());
+    assertEquals(0, mainThread.posted.size());
+
+    EventResponse<String> fromBackground = new EventResponse<>(String.class, 1, mainThread, DIRECT);
+    fromBackground.setCallback(callback, RunType.MAIN);
+    mainThread.isCurrentThread = false;
+    fromBackground.onHandlerResult("background", RunType.BACKGROUND);
+    assertEquals(1, callback.results.size());
+    assertEquals(1, mainThread.posted.size());
+
+    mainThread.posted.get(0).run();
+    assertEquals("background", callback.results.get(1));
+  }
+
+  @Test
+  public void testCancelledResponseDoesntCallBack() {
+    RecordingCallback callback = new RecordingCallback();
+    EventResponse<String> response = new EventResponse<>(String.class, 1, new QueueingMainThread(), DIRECT);
+    response.setCallback(callback, RunType.DEFAULT);
+    assertTrue(response.cancel(false));
+
+    response.onHandlerResult("late", RunType.DEFAULT);
+    assertEquals(0, callback.results.size());
+    assertTrue(response.isCancelled());
+  }
+}
@@ -0,0 +1,290 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class EventRoutesTest {
+  private static class Click implements Event {}
+  private static class Scroll implements Event {}
+  private interface Gesture extends Event {}
+  private static class DoubleClick extends Click implements Gesture {}
+  private static class TripleClick extends DoubleClick {}
+
+  private static class SingleHandlerDispatcher extends EventDispatcher {
+    private final Class<? extends Event> eventClass;
+    private final RunType runType;
+    private final int priority;
+
+    public SingleHandlerDispatcher(Class<? extends Event> eventClass, RunType runType, int priority) {
+      this.eventClass = eventClass;
+      this.runType = runType;
+      this.priority = priority;
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {}
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return Collections.<Class<? extends Event>>singleton(eventClass);
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return this.eventClass == eventClass ? 0 : -1;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return runType;
+    }
+
+    @Override
+    public int getPriority(int eventId) {
+      return priority;
+    }
+  }
+
+  private static class CountingDispatcher extends SingleHandlerDispatcher {
+    private int runTypeLookups;
+
+    public CountingDispatcher(Class<? extends Event> eventClass) {
+      super(eventClass, RunType.DEFAULT, 0);
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      runTypeLookups++;
+      return super.getRunType(eventId);
+    }
+  }
+
+  /**
+   * Has a handler for each of its event classes, with the event ids in the given order, like a generated dispatcher.
+   */
+  private static class MultiHandlerDispatcher extends EventDispatcher {
+    private final List<Class<? extends Event>> eventClasses;
+    private final RunType[] runTypes;
+
+    public MultiHandlerDispatcher(List<Class<? extends Event>> eventClasses, RunType... runTypes) {
+      this.eventClasses = eventClasses;
+      this.runTypes = runTypes;
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {}
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return new LinkedHashSet<>(eventClasses);
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return eventClasses.indexOf(eventClass);
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return runTypes[eventId];
+    }
+  }
+
+  private static Subscription subscription(RunType runType, int priority) {
+    return subscription(Click.class, runType, priority);
+  }
+
+  private static Subscription subscription(Class<? extends Event> eventClass, RunType runType, int priority) {
+    return subscription(new SingleHandlerDispatcher(eventClass, runType, priority));
+  }
+
+  private static Subscription subscription(EventDispatcher dispatcher) {
+    return new Subscription(dispatcher, Object.class, null, new BackgroundQueueLimit(), null,
+        new Executor[dispatcher.getDispatchableEvents().size()]);
+  }
+
+  @Test
+  public void testTargetsAreOrderedByPriorityThenSubscriptionOrder() {
+    Subscription low = subscription(RunType.DEFAULT, -5);
+    Subscription first = subscription(RunType.DEFAULT, 0);
+    Subscription high = subscription(RunType.DEFAULT, 10);
+    Subscription second = subscription(RunType.DEFAULT, 0);
+
+    EventRoute route = EventRoutes.EMPTY
+        .withSubscriber(low)
+        .withSubscriber(first)
+        .withSubscriber(high)
+        .withSubscriber(second)
+        .get(Click.class);
+
+    assertEquals(4, route.postingThreadTargets.length);
+    assertSame(high.dispatcher, route.postingThreadTargets[0].dispatcher);
+    assertSame(first.dispatcher, route.postingThreadTargets[1].dispatcher);
+    assertSame(second.dispatcher, route.postingThreadTargets[2].dispatcher);
+    assertSame(low.dispatcher, route.postingThreadTargets[3].dispatcher);
+  }
+
+  @Test
+  public void testPrioritiesAreOrderedWithinEachRunType() {
+    Subscription mainLow = subscription(RunType.MAIN, 1);
+    Subscription posting = subscription(RunType.DEFAULT, 0);
+    Subscription mainHigh = subscription(RunType.MAIN, 2);
+
+    EventRoute route = EventRoutes.EMPTY
+        .withSubscriber(mainLow)
+        .withSubscriber(posting)
+        .withSubscriber(mainHigh)
+        .get(Click.class);
+
+    assertEquals(1, route.postingThreadTargets.length);
+    assertEquals(2, route.mainThreadTargets.length);
+    assertSame(mainHigh.dispatcher, route.mainThreadTargets[0].dispatcher);
+    assertSame(mainLow.dispatcher, route.mainThreadTargets[1].dispatcher);
+  }
+
+  @Test
+  public void testMainAndPostingThreadTargetsAreOrderedByPriorityTogether() {
+    Subscription mainLow = subscription(RunType.MAIN, 1);
+    Subscription posting = subscription(RunType.DEFAULT, 5);
+    Subscription mainHigh = subscription(RunType.MAIN, 2);
+    Subscription background = subscription(RunType.BACKGROUND, 3);
+
+    EventRoute route = EventRoutes.EMPTY
+        .withSubscriber(mainLow)
+        .withSubscriber(posting)
+        .withSubscriber(mainHigh)
+        .withSubscriber(background)
+        .get(Click.class);
+
+    assertEquals(3, route.mainAndPostingThreadTargets.length);
+    assertSame(posting.dispatcher, route.mainAndPostingThreadTargets[0].dispatcher);
+    assertSame(mainHigh.dispatcher, route.mainAndPostingThreadTargets[1].dispatcher);
+    assertSame(mainLow.dispatcher, route.mainAndPostingThreadTargets[2].dispatcher);
+  }
+
+  @Test
+  public void testTargetsForDifferentSupertypesAreOrderedByPriorityTogether() {
+    Subscription doubleClicked = subscription(DoubleClick.class, RunType.DEFAULT, 1);
+    Subscription gestured = subscription(Gesture.class, RunType.DEFAULT, 3);
+    Subscription clicked = subscription(Click.class, RunType.DEFAULT, 5);
+    Subscription alsoClicked = subscription(Click.class, RunType.DEFAULT, 1);
+    Subscription listener = subscription(new SingleHandlerDispatcher(Event.class, RunType.DEFAULT, 4));
+
+    EventRoute route = EventRoutes.EMPTY
+        .withSubscriber(doubleClicked)
+        .withSubscriber(alsoClicked)
+        .withSubscriber(gestured)
+        .withSubscriber(clicked)
+        .withListener(listener)
+        .get(TripleClick.class);
+
+    assertEquals(5, route.postingThreadTargets.length);
+    assertSame(clicked.dispatcher, route.postingThreadTargets[0].dispatcher);
+    assertSame(listener.dispatcher, route.postingThreadTargets[1].dispatcher);
+    assertSame(gestured.dispatcher, route.postingThreadTargets[2].dispatcher);
+    // the same priority, so the nearer type's handler comes first
+    assertSame(doubleClicked.dispatcher, route.postingThreadTargets[3].dispatcher);
+    assertSame(alsoClicked.dispatcher, route.postingThreadTargets[4].dispatcher);
+  }
+
+  @Test
+  public void testSubscribingOnlyRebuildsTheRoutesItChanges() {
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(subscription(RunType.DEFAULT, 0));
+    EventRoute clickRoute = routes.get(Click.class);
+    EventRoute scrollRoute = routes.get(Scroll.class);
+
+    Subscription scrolled = subscription(Scroll.class, RunType.DEFAULT, 0);
+    routes = routes.withSubscriber(scrolled);
+    assertSame(clickRoute, routes.get(Click.class));
+    assertNotSame(scrollRoute, routes.get(Scroll.class));
+    assertEquals(1, routes.get(Scroll.class).postingThreadTargets.length);
+
+    scrollRoute = routes.get(Scroll.class);
+    routes = routes.withoutSubscriber(scrolled);
+    assertSame(clickRoute, routes.get(Click.class));
+    assertNotSame(scrollRoute, routes.get(Scroll.class));
+    assertEquals(0, routes.get(Scroll.class).targetCount);
+  }
+
+  @Test
+  public void testRoutesAreBuiltWhenSubscribingInsteadOfWhenPosting() {
+    CountingDispatcher clicks = new CountingDispatcher(Click.class);
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(subscription(clicks));
+    assertEquals(1, clicks.runTypeLookups);
+
+    EventRoute route = routes.get(Click.class);
+    assertSame(route, routes.get(Click.class));
+    assertEquals(1, route.targetCount);
+    assertEquals(1, clicks.runTypeLookups);
+
+    // a subclass is built on its first post, and rebuilt with the snapshots after that
+    routes.get(DoubleClick.class);
+    assertEquals(2, clicks.runTypeLookups);
+    Subscription scrolled = subscription(Scroll.class, RunType.DEFAULT, 0);
+    routes = routes.withSubscriber(scrolled).withoutSubscriber(scrolled);
+    routes = routes.withoutSubscriber(subscription(new CountingDispatcher(DoubleClick.class)));
+    assertEquals(3, clicks.runTypeLookups);
+    routes.get(DoubleClick.class);
+    assertEquals(3, clicks.runTypeLookups);
+  }
+
+  @Test
+  public void testListenersRebuildEveryRoute() {
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(subscription(RunType.DEFAULT, 0));
+    EventRoute clickRoute = routes.get(Click.class);
+
+    routes = routes.withListener(subscription(Scroll.class, RunType.DEFAULT, 0));
+    assertNotSame(clickRoute, routes.get(Click.class));
+    assertEquals(2, routes.get(Click.class).postingThreadTargets.length);
+  }
+
+  @Test
+  public void testSubclassesAreRoutedToSupertypeHandlers() {
+    Subscription clicked = subscription(Click.class, RunType.DEFAULT, 0);
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(clicked);
+
+    EventRoute route = routes.get(TripleClick.class);
+    assertEquals(1, route.targetCount);
+    assertSame(clicked.dispatcher, route.postingThreadTargets[0].dispatcher);
+    assertEquals(0, routes.get(Scroll.class).targetCount);
+  }
+
+  @Test
+  public void testInterfaceHandlersGetTheEvent() {
+    Subscription gestured = subscription(Gesture.class, RunType.DEFAULT, 0);
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(gestured);
+
+    assertEquals(1, routes.get(DoubleClick.class).targetCount);
+    assertSame(gestured.dispatcher, routes.get(DoubleClick.class).postingThreadTargets[0].dispatcher);
+    assertEquals(1, routes.get(TripleClick.class).targetCount);
+    assertEquals(0, routes.get(Click.class).targetCount);
+  }
+
+  @Test
+  public void testASubscriberWithHandlersForTwoSupertypesGetsTheEventOnceOnTheNearestHandler() {
+    // subtypes come before their supertypes, like the processor orders them
+    Subscription subscription = subscription(new MultiHandlerDispatcher(
+        Arrays.<Class<? extends Event>>asList(DoubleClick.class, Click.class), RunType.MAIN, RunType.DEFAULT));
+    EventRoutes routes = EventRoutes.EMPTY.withSubscriber(subscription);
+
+    EventRoute route = routes.get(TripleClick.class);
+    assertEquals(1, route.targetCount);
+    assertEquals(1, route.mainThreadTargets.length);
+    assertEquals(0, route.mainThreadTargets[0].eventId);
+
+    route = routes.get(Click.class);
+    assertEquals(1, route.targetCount);
+    assertEquals(1, route.postingThreadTargets.length);
+    assertEquals(1, route.postingThreadTargets[0].eventId);
+  }
+}
@@ -0,0 +1,184 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventStreamTest {
+  private static class Tick implements Event {
+    private final int number;
+
+    public Tick(int number) {
+      this.number = number;
+    }
+  }
+
+  private static class RecordingSubscriber implements Subscriber<Tick> {
+    private final List<Integer> ticks = new ArrayList<>();
+    private final List<Throwable> errors = new ArrayList<>();
+    private org.reactivestreams.Subscription subscription;
+
+    @Override
+    public void onSubscribe(org.reactivestreams.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Tick tick) {
+      ticks.add(tick.number);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      errors.add(t);
+    }
+
+    @Override
+    public void onComplete() {}
+  }
+
+  private static void post(Events events, int... numbers) {
+    for(int number : numbers) {
+      events.post(new Tick(number));
+    }
+  }
+
+  @Test
+  public void testOnlyDeliversWhatWasRequested() {
+    Events events = new Events();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    events.stream(Tick.class).subscribe(subscriber);
+
+    post(events, 1, 2);
+    assertEquals(0, subscriber.ticks.size());
+
+    subscriber.subscription.request(1);
+    assertEquals(Arrays.asList(1), subscriber.ticks);
+
+    subscriber.subscription.request(2);
+    post(events, 3);
+    assertEquals(Arrays.asList(1, 2, 3), subscriber.ticks);
+  }
+
+  @Test
+  public void testDropNewestWhenTheBufferIsFull() {
+    Events events = new Events();
+    EventStream<Tick> stream = events.stream(Tick.class, 2, OverflowPolicy.DROP_NEWEST);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    stream.subscribe(subscriber);
+
+    post(events, 1, 2, 3);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertEquals(Arrays.asList(1, 2), subscriber.ticks);
+    assertEquals(1, stream.getDroppedEventCount());
+  }
+
+  @Test
+  public void testDropOldestWhenTheBufferIsFull() {
+    Events events = new Events();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    events.stream(Tick.class, 2, OverflowPolicy.DROP_OLDEST).subscribe(subscriber);
+
+    post(events, 1, 2, 3);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertEquals(Arrays.asList(2, 3), subscriber.ticks);
+  }
+
+  @Test
+  public void testCancelledSubscriptionsArentRouted() {
+    Events events = new Events();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    events.stream(Tick.class).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    post(events, 1);
+    subscriber.subscription.cancel();
+    post(events, 2);
+
+    assertEquals(Arrays.asList(1), subscriber.ticks);
+  }
+
+  @Test
+  public void testRequestingFromOnNextDoesntRecurse() {
+    Events events = new Events();
+    final List<Integer> depths = new ArrayList<>();
+    events.stream(Tick.class).subscribe(new RecordingSubscriber() {
+      private int depth;
+
+      @Override
+      public void onSubscribe(org.reactivestreams.Subscription subscription) {
+        super.onSubscribe(subscription);
+        subscription.request(1);
+      }
+
+      @Override
+      public void onNext(Tick tick) {
+        depth++;
+        depths.add(depth);
+        super.subscription.request(1);
+        depth--;
+      }
+    });
+
+    post(events, 1, 2, 3);
+    assertEquals(Arrays.asList(1, 1, 1), depths);
+  }
+
+  @Test
+  public void testANonPositiveRequestFromOnNextSignalsOnErrorAfterOnNextReturns() {
+    Events events = new Events();
+    final List<String> signals = new ArrayList<>();
+    RecordingSubscriber subscriber = new RecordingSubscriber() {
+      @Override
+      public void onNext(Tick tick) {
+        signals.add("onNext start");
+        super.subscription.request(0);
+        super.subscription.request(-1);
+        signals.add("onNext end");
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        super.onError(t);
+        signals.add("onError");
+      }
+    };
+    events.stream(Tick.class).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    post(events, 1, 2);
+
+    assertEquals(Arrays.asList("onNext start", "onNext end", "onError"), signals);
+    assertEquals(1, subscriber.errors.size());
+    assertTrue(subscriber.errors.get(0) instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void testANonPositiveRequestFromOnSubscribeSignalsOnErrorAfterOnSubscribeReturns() {
+    Events events = new Events();
+    final List<String> signals = new ArrayList<>();
+    events.stream(Tick.class).subscribe(new RecordingSubscriber() {
+      @Override
+      public void onSubscribe(org.reactivestreams.Subscription subscription) {
+        signals.add("onSubscribe start");
+        subscription.request(0);
+        signals.add("onSubscribe end");
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        signals.add("onError");
+      }
+    });
+
+    assertEquals(Arrays.asList("onSubscribe start", "onSubscribe end", "onError"), signals);
+  }
+}
@@ -0,0 +1,124 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventTargetTest {
+  private static final int EVENT_COUNT = 200;
+
+  private static class CountEvent implements Event {
+    public final int count;
+
+    public CountEvent(int count) {
+      this.count = count;
+    }
+  }
+
+  private static class ConflatedDispatcher extends EventDispatcher {
+    public final CountDownLatch done = new CountDownLatch(1);
+    public final AtomicInteger running = new AtomicInteger();
+    public volatile int last = -1;
+    public volatile boolean concurrent;
+    public volatile boolean outOfOrder;
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {
+      if(running.incrementAndGet() > 1) {
+        concurrent = true;
+      }
+      int count = ((CountEvent) event).count;
+      if(count <= last) {
+        outOfOrder = true;
+      }
+      last = count;
+      // leaves time for more events to be posted while this one is in the handler
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+      running.decrementAndGet();
+
+      if(count == EVENT_COUNT - 1) {
+        done.countDown();
+      }
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return Collections.<Class<? extends Event>>singleton(CountEvent.class);
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return 0;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return RunType.EXECUTOR;
+    }
+
+    @Override
+    public boolean isConflated(int eventId) {
+      return true;
+    }
+  }
+
+  @Test
+  public void testAConflatedTargetOnAnExecutorWithManyThreadsIsDeliveredToSerially() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ConflatedDispatcher dispatcher = new ConflatedDispatcher();
+    EventTarget target = new EventTarget(new Subscription(dispatcher, Object.class, null, null, null,
+        new Executor[] {executor}), 0, RunType.EXECUTOR);
+
+    for(int i = 0; i < EVENT_COUNT; i++) {
+      if(target.offerPendingEvent(new CountEvent(i))) {
+        target.executor.execute(target);
+      }
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    assertTrue(dispatcher.done.await(5, TimeUnit.SECONDS));
+    assertFalse(dispatcher.concurrent);
+    assertFalse(dispatcher.outOfOrder);
+    executor.shutdown();
+  }
+
+  @Test
+  public void testAConflatedTargetIsScheduledAgainAfterItsHandlerThrows() {
+    final RuntimeException failure = new RuntimeException("from the handler");
+    final AtomicInteger calls = new AtomicInteger();
+    EventDispatcher dispatcher = new ConflatedDispatcher() {
+      @Override
+      public void dispatchEvent(int eventId, Event event) {
+        if(calls.getAndIncrement() == 0) {
+          throw failure;
+        }
+      }
+    };
+    EventTarget target = new EventTarget(new Subscription(dispatcher, Object.class, null, null, null,
+        new Executor[1]), 0, RunType.EXECUTOR);
+
+    assertTrue(target.offerPendingEvent(new CountEvent(0)));
+    try {
+      target.run();
+    }
+    catch(RuntimeException e) {
+      assertEquals(failure, e);
+    }
+
+    assertTrue(target.offerPendingEvent(new CountEvent(1)));
+    target.run();
+    assertEquals(2, calls.get());
+  }
+}
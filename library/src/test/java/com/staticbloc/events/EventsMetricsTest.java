@@ -0,0 +1,56 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class EventsMetricsTest {
+  private static class Click implements Event {}
+  private static class Scroll implements Event {}
+  private static class FastSubscriber {}
+  private static class SlowSubscriber {}
+
+  @Test
+  public void testFanOutPerEventClass() {
+    EventsMetrics metrics = new EventsMetrics();
+    metrics.onPost(Click.class, 3);
+    metrics.onPost(Click.class, 1);
+    metrics.onPost(Scroll.class, 0);
+
+    List<EventsMetrics.EventClassMetrics> eventClasses = metrics.getEventClassMetrics();
+    assertEquals(2, eventClasses.size());
+    assertSame(Click.class, eventClasses.get(0).getEventClass());
+    assertEquals(2, eventClasses.get(0).getPostCount());
+    assertEquals(2.0, eventClasses.get(0).getAverageFanOut(), 0);
+  }
+
+  @Test
+  public void testSlowHandlersAreReported() {
+    EventsMetrics metrics = new EventsMetrics(1, TimeUnit.MILLISECONDS);
+    final List<EventsMetrics.HandlerMetrics> slowHandlers = new ArrayList<>();
+    metrics.setSlowHandlerListener(new EventsMetrics.SlowHandlerListener() {
+      @Override
+      public void onSlowHandler(EventsMetrics.HandlerMetrics handler, long runNanos) {
+        slowHandlers.add(handler);
+      }
+    });
+
+    metrics.onHandlerCalled(FastSubscriber.class, Click.class, RunType.MAIN, 0, TimeUnit.MICROSECONDS.toNanos(10));
+    metrics.onHandlerCalled(SlowSubscriber.class, Click.class, RunType.MAIN, 0, TimeUnit.MILLISECONDS.toNanos(5));
+    metrics.onHandlerCalled(SlowSubscriber.class, Click.class, RunType.MAIN, -1, TimeUnit.MICROSECONDS.toNanos(10));
+
+    assertEquals(1, slowHandlers.size());
+    EventsMetrics.HandlerMetrics slowest = metrics.getHandlerMetrics().get(0);
+    assertSame(slowHandlers.get(0), slowest);
+    assertSame(SlowSubscriber.class, slowest.getSubscriberClass());
+    assertEquals(2, slowest.getCallCount());
+    assertEquals(1, slowest.getSlowCallCount());
+    // the unknown queue time isn't recorded
+    assertEquals(1, slowest.getQueueTime().getCount());
+  }
+}
@@ -0,0 +1,43 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+  @Test
+  public void testBucketsCoverEveryValue() {
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+    for(long value : values) {
+      int index = LatencyHistogram.getBucketIndex(value);
+      long highest = LatencyHistogram.getBucketHighestValue(index);
+      assertTrue(value + " should be at most " + highest, value <= highest);
+      // within 12.5%
+      assertTrue(value + " is too far from " + highest, highest - value <= value / 8);
+      if(index > 0) {
+        assertTrue(value > LatencyHistogram.getBucketHighestValue(index - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for(int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+    }
+    histogram.record(-1);
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(100, histogram.getMax(TimeUnit.MICROSECONDS));
+    assertEquals(50, histogram.getMean(TimeUnit.MICROSECONDS));
+
+    long median = histogram.getValueAtPercentile(50, TimeUnit.NANOSECONDS);
+    assertTrue(median >= TimeUnit.MICROSECONDS.toNanos(50));
+    assertTrue(median <= TimeUnit.MICROSECONDS.toNanos(50) * 9 / 8);
+    assertEquals(TimeUnit.MICROSECONDS.toNanos(100), histogram.getValueAtPercentile(100, TimeUnit.NANOSECONDS));
+  }
+}
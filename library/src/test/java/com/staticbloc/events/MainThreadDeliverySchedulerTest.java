@@ -0,0 +1,144 @@
+package com.staticbloc.events;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MainThreadDeliverySchedulerTest {
+  private static class FakeLooper implements Executor {
+    private final Queue<Runnable> messages = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable r) {
+      messages.add(r);
+    }
+
+    public int getMessageCount() {
+      return messages.size();
+    }
+
+    public void runNextMessage() {
+      messages.remove().run();
+    }
+  }
+
+  private static class FakeClock implements MainThreadDeliveryScheduler.Clock {
+    private long now;
+
+    @Override
+    public long nanoTime() {
+      return now;
+    }
+
+    public void advance(long millis) {
+      now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+  }
+
+  private FakeLooper looper;
+  private FakeClock clock;
+  private MainThreadDeliveryScheduler scheduler;
+  private List<Integer> delivered;
+
+  @Before
+  public void setUp() {
+    looper = new FakeLooper();
+    clock = new FakeClock();
+    scheduler = new MainThreadDeliveryScheduler(looper, clock);
+    scheduler.setFrameBudget(10, TimeUnit.MILLISECONDS);
+    delivered = new ArrayList<>();
+  }
+
+  private Runnable delivery(final int id, final long durationMillis) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        delivered.add(id);
+        clock.advance(durationMillis);
+      }
+    };
+  }
+
+  @Test
+  public void testOnlyOneDrainIsPostedForManyDeliveries() {
+    for(int i = 0; i < 5; i++) {
+      scheduler.schedule(delivery(i, 1));
+    }
+
+    assertEquals(1, looper.getMessageCount());
+    looper.runNextMessage();
+
+    assertEquals(5, delivered.size());
+    assertEquals(0, looper.getMessageCount());
+    assertEquals(0, scheduler.getDeferredDeliveryCount());
+    assertEquals(0, scheduler.getYieldCount());
+  }
+
+  @Test
+  public void testYieldsToTheLooperWhenTheBudgetIsUsedUp() {
+    for(int i = 0; i < 10; i++) {
+      scheduler.schedule(delivery(i, 4));
+    }
+
+    // 3 deliveries use up the 10ms budget
+    looper.runNextMessage();
+    assertEquals(3, delivered.size());
+    assertEquals(1, looper.getMessageCount());
+    assertEquals(7, scheduler.getPendingDeliveryCount());
+    assertEquals(7, scheduler.getDeferredDeliveryCount());
+    assertEquals(1, scheduler.getYieldCount());
+
+    while(looper.getMessageCount() > 0) {
+      looper.runNextMessage();
+    }
+
+    assertEquals(10, delivered.size());
+    for(int i = 0; i < 10; i++) {
+      assertEquals(i, (int) delivered.get(i));
+    }
+    assertEquals(7 + 4 + 1, scheduler.getDeferredDeliveryCount());
+    assertEquals(3, scheduler.getYieldCount());
+  }
+
+  @Test
+  public void testDeliveriesScheduledAfterADrainAreDrainedAgain() {
+    scheduler.schedule(delivery(0, 1));
+    looper.runNextMessage();
+
+    scheduler.schedule(delivery(1, 1));
+    assertEquals(1, looper.getMessageCount());
+    looper.runNextMessage();
+
+    assertEquals(2, delivered.size());
+  }
+
+  @Test
+  public void testAThrowingDeliveryDoesNotStrandTheQueue() {
+    scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException();
+      }
+    });
+    scheduler.schedule(delivery(1, 1));
+
+    try {
+      looper.runNextMessage();
+      fail();
+    }
+    catch(IllegalStateException expected) {}
+
+    assertEquals(1, looper.getMessageCount());
+    looper.runNextMessage();
+    assertEquals(1, delivered.size());
+  }
+}
@@ -0,0 +1,263 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferEngineTest {
+  private static class CountEvent implements Event {
+    public final int producer;
+    public final int count;
+
+    public CountEvent(int producer, int count) {
+      this.producer = producer;
+      this.count = count;
+    }
+  }
+
+  private static class RecordingDispatcher extends EventDispatcher {
+    public final List<CountEvent> received = Collections.synchronizedList(new ArrayList<CountEvent>());
+    private final CountDownLatch done;
+    private volatile Thread thread;
+    private volatile boolean concurrent;
+
+    public RecordingDispatcher(CountDownLatch done) {
+      this.done = done;
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {
+      if(thread != null && thread != Thread.currentThread()) {
+        concurrent = true;
+      }
+      thread = Thread.currentThread();
+      received.add((CountEvent) event);
+      done.countDown();
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return Collections.<Class<? extends Event>>singleton(CountEvent.class);
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return 0;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return RunType.BACKGROUND;
+    }
+  }
+
+  private static void assertDeliveredInOrder(RecordingDispatcher dispatcher, int producerCount, int eventsPerProducer) {
+    assertEquals(producerCount * eventsPerProducer, dispatcher.received.size());
+    int[] next = new int[producerCount];
+    for(CountEvent event : dispatcher.received) {
+      assertEquals(next[event.producer]++, event.count);
+    }
+  }
+
+  private void testEveryEventIsDeliveredInOrder(RingBufferEngine.ProducerType producerType, final int producerCount)
+      throws InterruptedException {
+    final int eventsPerProducer = 10000;
+    final int subscriberCount = 5;
+    CountDownLatch done = new CountDownLatch(subscriberCount * producerCount * eventsPerProducer);
+
+    // a small ring, so that the producers have to wait for the consumers
+    final RingBufferEngine engine = new RingBufferEngine(64, 3, producerType, RingBufferEngine.WaitStrategy.YIELD);
+    RecordingDispatcher[] dispatchers = new RecordingDispatcher[subscriberCount];
+    final EventTarget[] targets = new EventTarget[subscriberCount];
+    for(int i = 0; i < subscriberCount; i++) {
+      dispatchers[i] = new RecordingDispatcher(done);
+      targets[i] = new EventTarget(new Subscription(dispatchers[i], Object.class, null, null, null, new Executor[1]), 0, RunType.BACKGROUND);
+    }
+
+    List<Thread> producers = new ArrayList<>();
+    for(int p = 0; p < producerCount; p++) {
+      final int producer = p;
+      producers.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for(int i = 0; i < eventsPerProducer; i++) {
+            engine.publish(targets, new CountEvent(producer, i));
+          }
+        }
+      }));
+    }
+    for(Thread producer : producers) {
+      producer.start();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    for(RecordingDispatcher dispatcher : dispatchers) {
+      assertDeliveredInOrder(dispatcher, producerCount, eventsPerProducer);
+      assertFalse(dispatcher.concurrent);
+    }
+    engine.shutdown();
+  }
+
+  @Test
+  public void testSingleProducer() throws InterruptedException {
+    testEveryEventIsDeliveredInOrder(RingBufferEngine.ProducerType.SINGLE, 1);
+  }
+
+  @Test
+  public void testMultipleProducers() throws InterruptedException {
+    testEveryEventIsDeliveredInOrder(RingBufferEngine.ProducerType.MULTI, 4);
+  }
+
+  @Test
+  public void testATaskRunsInOrderWithItsTargetsDeliveries() throws InterruptedException {
+    RingBufferEngine engine = new RingBufferEngine(64, 3, RingBufferEngine.ProducerType.SINGLE,
+        RingBufferEngine.WaitStrategy.YIELD);
+    CountDownLatch done = new CountDownLatch(11);
+    final RecordingDispatcher dispatcher = new RecordingDispatcher(done);
+    EventTarget[] targets = new EventTarget[] {target(dispatcher)};
+
+    final CountEvent fromTask = new CountEvent(1, 0);
+    for(int i = 0; i < 10; i++) {
+      if(i == 5) {
+        engine.publishTask(targets[0], new Runnable() {
+          @Override
+          public void run() {
+            dispatcher.dispatchEvent(0, fromTask);
+          }
+        });
+      }
+      engine.publish(targets, new CountEvent(0, i));
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(5, dispatcher.received.indexOf(fromTask));
+    dispatcher.received.remove(fromTask);
+    assertDeliveredInOrder(dispatcher, 1, 10);
+    assertFalse(dispatcher.concurrent);
+    engine.shutdown();
+  }
+
+  /**
+   * Counts down for every event, and throws {@code failure} for the first one if it isn't {@code null}.
+   */
+  private static class CountingDispatcher extends EventDispatcher {
+    private final CountDownLatch done;
+    private Error failure;
+
+    public CountingDispatcher(CountDownLatch done, Error failure) {
+      this.done = done;
+      this.failure = failure;
+    }
+
+    @Override
+    public void dispatchEvent(int eventId, Event event) {
+      done.countDown();
+      if(failure != null) {
+        Error error = failure;
+        failure = null;
+        throw error;
+      }
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getDispatchableEvents() {
+      return Collections.<Class<? extends Event>>singleton(CountEvent.class);
+    }
+
+    @Override
+    public int getEventId(Class<? extends Event> eventClass) {
+      return 0;
+    }
+
+    @Override
+    public RunType getRunType(int eventId) {
+      return RunType.BACKGROUND;
+    }
+  }
+
+  private static EventTarget target(EventDispatcher dispatcher) {
+    return new EventTarget(new Subscription(dispatcher, Object.class, null, null, null, new Executor[1]), 0,
+        RunType.BACKGROUND);
+  }
+
+  /**
+   * Publishes an event to a new target and waits for it to be delivered.
+   * @return references to the target and the event, which nothing else references
+   */
+  private static List<WeakReference<Object>> publishAndWait(RingBufferEngine engine) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    EventTarget target = target(new CountingDispatcher(done, null));
+    CountEvent event = new CountEvent(0, 0);
+    engine.publish(new EventTarget[] {target}, event);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    return Arrays.asList(new WeakReference<Object>(target), new WeakReference<Object>(event));
+  }
+
+  @Test
+  public void testDeliveredSlotsDontKeepTheirTargetsOrEvents() throws InterruptedException {
+    // a ring that is nowhere near coming back around to the slot
+    RingBufferEngine engine = new RingBufferEngine(1024, 2, RingBufferEngine.ProducerType.SINGLE,
+        RingBufferEngine.WaitStrategy.YIELD);
+    List<WeakReference<Object>> references = publishAndWait(engine);
+
+    for(int i = 0; i < 50 && (references.get(0).get() != null || references.get(1).get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(references.get(0).get());
+    assertNull(references.get(1).get());
+    engine.shutdown();
+  }
+
+  @Test
+  public void testAnErrorInAHandlerDoesntStopItsConsumer() throws InterruptedException {
+    final List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+      @Override
+      public void uncaughtException(Thread thread, Throwable e) {
+        uncaught.add(e);
+      }
+    });
+
+    try {
+      // a single consumer with a ring that the posts below lap several times
+      final RingBufferEngine engine = new RingBufferEngine(4, 1, RingBufferEngine.ProducerType.SINGLE,
+          RingBufferEngine.WaitStrategy.YIELD);
+      CountDownLatch done = new CountDownLatch(20);
+      Error failure = new Error("from the handler");
+      final EventTarget[] targets = new EventTarget[] {target(new CountingDispatcher(done, failure))};
+      // posted from another thread, which would block forever if the consumer stopped
+      Thread producer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for(int i = 0; i < 20; i++) {
+            engine.publish(targets, new CountEvent(0, i));
+          }
+        }
+      });
+      producer.setDaemon(true);
+      producer.start();
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(Collections.<Throwable>singletonList(failure), uncaught);
+      engine.shutdown();
+    }
+    finally {
+      Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+    }
+  }
+}
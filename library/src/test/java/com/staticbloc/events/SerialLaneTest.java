@@ -0,0 +1,190 @@
+package com.staticbloc.events;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SerialLaneTest {
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testDeliveriesRunInOrderAndNeverConcurrently() throws InterruptedException {
+    final int deliveryCount = 1000;
+    final SerialLane lane = new SerialLane(executor);
+    final List<Integer> delivered = Collections.synchronizedList(new ArrayList<Integer>());
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(deliveryCount);
+
+    for(int i = 0; i < deliveryCount; i++) {
+      final int id = i;
+      lane.enqueue(new Runnable() {
+        @Override
+        public void run() {
+          int nowRunning = running.incrementAndGet();
+          maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+          delivered.add(id);
+          running.decrementAndGet();
+          done.countDown();
+        }
+      });
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, maxRunning.get());
+    for(int i = 0; i < deliveryCount; i++) {
+      assertEquals(i, (int) delivered.get(i));
+    }
+  }
+
+  @Test
+  public void testDifferentLanesRunInParallel() throws InterruptedException {
+    final CountDownLatch bothRunning = new CountDownLatch(2);
+    final CountDownLatch done = new CountDownLatch(2);
+
+    Runnable waitForTheOtherLane = new Runnable() {
+      @Override
+      public void run() {
+        bothRunning.countDown();
+        try {
+          if(bothRunning.await(5, TimeUnit.SECONDS)) {
+            done.countDown();
+          }
+        }
+        catch(InterruptedException ignored) {}
+      }
+    };
+
+    new SerialLane(executor).enqueue(waitForTheOtherLane);
+    new SerialLane(executor).enqueue(waitForTheOtherLane);
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  private static class ManualExecutor implements Executor {
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    public void runAll() {
+      while(!tasks.isEmpty()) {
+        tasks.remove(0).run();
+      }
+    }
+  }
+
+  private static Runnable record(final List<String> delivered, final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        delivered.add(name);
+      }
+    };
+  }
+
+  @Test
+  public void testDropNewestDropsDeliveriesThatDontFit() {
+    ManualExecutor manualExecutor = new ManualExecutor();
+    BackgroundQueueLimit limit = new BackgroundQueueLimit();
+    limit.set(2, OverflowPolicy.DROP_NEWEST);
+    SerialLane lane = new SerialLane(manualExecutor, limit);
+    List<String> delivered = new ArrayList<>();
+
+    lane.enqueue(record(delivered, "a"));
+    lane.enqueue(record(delivered, "b"));
+    lane.enqueue(record(delivered, "c"));
+    assertEquals(2, lane.getDepth());
+
+    manualExecutor.runAll();
+    assertEquals(Arrays.asList("a", "b"), delivered);
+    assertEquals(1, limit.getDroppedDeliveryCount());
+    assertEquals(0, lane.getDepth());
+  }
+
+  @Test
+  public void testDropOldestMakesRoomForNewDeliveries() {
+    ManualExecutor manualExecutor = new ManualExecutor();
+    BackgroundQueueLimit limit = new BackgroundQueueLimit();
+    limit.set(2, OverflowPolicy.DROP_OLDEST);
+    SerialLane lane = new SerialLane(manualExecutor, limit);
+    List<String> delivered = new ArrayList<>();
+
+    lane.enqueue(record(delivered, "a"));
+    lane.enqueue(record(delivered, "b"));
+    lane.enqueue(record(delivered, "c"));
+
+    manualExecutor.runAll();
+    assertEquals(Arrays.asList("b", "c"), delivered);
+    assertEquals(1, limit.getDroppedDeliveryCount());
+  }
+
+  @Test
+  public void testBlockedPosterResumesOnceThereIsRoom() throws InterruptedException {
+    BackgroundQueueLimit limit = new BackgroundQueueLimit();
+    limit.set(1, OverflowPolicy.BLOCK);
+    final SerialLane lane = new SerialLane(executor, limit);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(3);
+
+    Runnable waitForRelease = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException ignored) {}
+        done.countDown();
+      }
+    };
+    final Runnable countDown = new Runnable() {
+      @Override
+      public void run() {
+        done.countDown();
+      }
+    };
+
+    lane.enqueue(waitForRelease);
+    lane.enqueue(countDown);
+
+    Thread poster = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        lane.enqueue(countDown);
+      }
+    });
+    poster.start();
+    poster.join(100);
+    assertTrue(poster.isAlive());
+
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(0, limit.getDroppedDeliveryCount());
+  }
+}
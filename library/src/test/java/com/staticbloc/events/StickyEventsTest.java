@@ -0,0 +1,49 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StickyEventsTest {
+  private static class FirstEvent implements Event {}
+  private static class SecondEvent implements Event {}
+  private static class ThirdEvent implements Event {}
+
+  @Test
+  public void testOnlyTheLatestEventOfAClassIsKept() {
+    StickyEvents stickyEvents = new StickyEvents();
+    FirstEvent older = new FirstEvent();
+    FirstEvent newer = new FirstEvent();
+
+    stickyEvents.put(older);
+    stickyEvents.put(newer);
+
+    assertEquals(1, stickyEvents.size());
+    assertSame(newer, stickyEvents.get(FirstEvent.class));
+    assertFalse(stickyEvents.remove(older));
+    assertTrue(stickyEvents.remove(newer));
+    assertNull(stickyEvents.get(FirstEvent.class));
+  }
+
+  @Test
+  public void testTheLeastRecentlyPostedClassIsEvicted() {
+    StickyEvents stickyEvents = new StickyEvents();
+    stickyEvents.setMaxSize(2);
+
+    stickyEvents.put(new FirstEvent());
+    stickyEvents.put(new SecondEvent());
+    stickyEvents.put(new FirstEvent());
+    stickyEvents.put(new ThirdEvent());
+
+    assertEquals(2, stickyEvents.size());
+    assertNull(stickyEvents.get(SecondEvent.class));
+
+    stickyEvents.setMaxSize(1);
+    assertEquals(1, stickyEvents.size());
+    assertNull(stickyEvents.get(FirstEvent.class));
+  }
+}
@@ -0,0 +1,82 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TypedListenerTest {
+  private static class Click implements Event {}
+  private static class DoubleClick extends Click {}
+  private static class Scroll implements Event {}
+
+  private static class RecordingListener implements Events.OnEventListener<Click> {
+    private final List<Event> events = new ArrayList<>();
+
+    @Override
+    public void onEvent(Click event) {
+      events.add(event);
+    }
+  }
+
+  @Test
+  public void testGetsItsClassAndSubclassesWithoutAnyHandlers() {
+    Events events = new Events();
+    RecordingListener listener = new RecordingListener();
+    events.subscribe(Click.class, listener, RunType.DEFAULT);
+    // subscribing it again doesn't deliver twice
+    events.subscribe(Click.class, listener, RunType.DEFAULT);
+
+    Click click = new Click();
+    DoubleClick doubleClick = new DoubleClick();
+    events.post(click);
+    events.post(new Scroll());
+    events.post(doubleClick);
+
+    assertEquals(Arrays.<Event>asList(click, doubleClick), listener.events);
+  }
+
+  @Test
+  public void testUnsubscribe() {
+    Events events = new Events();
+    RecordingListener listener = new RecordingListener();
+    events.subscribe(Click.class, listener, RunType.DEFAULT);
+    events.unsubscribe(Click.class, listener, RunType.DEFAULT);
+
+    events.post(new Click());
+
+    assertEquals(0, listener.events.size());
+  }
+
+  @Test
+  public void testGetsTheStickyEventWhenItSubscribes() {
+    Events events = new Events();
+    Click click = new Click();
+    events.postSticky(click);
+
+    RecordingListener listener = new RecordingListener();
+    events.subscribe(Click.class, listener, RunType.DEFAULT);
+
+    assertEquals(Arrays.<Event>asList(click), listener.events);
+  }
+
+  @Test
+  public void testGlobalListenersGetEventsThatNothingElseSubscribedTo() {
+    Events events = new Events();
+    final List<Event> received = new ArrayList<>();
+    events.subscribe(new Events.OnEventListener<Event>() {
+      @Override
+      public void onEvent(Event event) {
+        received.add(event);
+      }
+    }, RunType.DEFAULT);
+
+    Scroll scroll = new Scroll();
+    events.post(scroll);
+
+    assertEquals(Arrays.<Event>asList(scroll), received);
+  }
+}
@@ -0,0 +1,135 @@
+package com.staticbloc.events;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class WeakSubscriptionTest {
+  public static class Ping implements Event {}
+
+  public static class Subscriber {
+    public final List<Event> received = new ArrayList<>();
+
+    @EventHandler(runType = RunType.DEFAULT)
+    public void onPing(Ping ping) {
+      received.add(ping);
+    }
+  }
+
+  /**
+   * Remembers how many handlers the latest post was routed to.
+   */
+  private static class HandlerCountMonitor implements EventsMonitor {
+    private volatile int handlerCount = -1;
+
+    @Override
+    public void onPost(Class<? extends Event> eventClass, int handlerCount) {
+      this.handlerCount = handlerCount;
+    }
+
+    @Override
+    public void onHandlerCalled(Class<?> subscriberClass, Class<? extends Event> handledEventClass, RunType runType,
+                                long queuedNanos, long runNanos) {}
+  }
+
+  @Test
+  public void testWeaklyHeldSubscribersGetEvents() {
+    Events events = new Events();
+    Subscriber subscriber = new Subscriber();
+    events.subscribeWeakly(subscriber);
+
+    Ping ping = new Ping();
+    events.post(ping);
+
+    assertEquals(1, subscriber.received.size());
+    assertEquals(ping, subscriber.received.get(0));
+  }
+
+  private static WeakReference<Subscriber> subscribeWeakly(Events events) {
+    Subscriber subscriber = new Subscriber();
+    events.subscribeWeakly(subscriber);
+    events.post(new Ping());
+    assertEquals(1, subscriber.received.size());
+    return new WeakReference<>(subscriber);
+  }
+
+  @Test
+  public void testCollectedSubscribersAreRemovedOnPost() throws InterruptedException {
+    Events events = new Events();
+    HandlerCountMonitor monitor = new HandlerCountMonitor();
+    events.setMonitor(monitor);
+    WeakReference<Subscriber> subscriber = subscribeWeakly(events);
+    assertEquals(1, monitor.handlerCount);
+
+    // the dispatcher's reference is enqueued some time after it's cleared, and the next post removes it
+    for(int i = 0; i < 100 && monitor.handlerCount != 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+      events.post(new Ping());
+    }
+    assertNull(subscriber.get());
+    assertEquals(0, monitor.handlerCount);
+  }
+
+  @Test
+  public void testUnsubscribeFindsWeaklyHeldSubscribers() {
+    Events events = new Events();
+    Subscriber subscriber = new Subscriber();
+    events.subscribeWeakly(subscriber);
+
+    events.unsubscribe(subscriber);
+    events.post(new Ping());
+    assertEquals(0, subscriber.received.size());
+
+    // it isn't subscribed anymore, so it can subscribe again
+    events.subscribeWeakly(subscriber);
+    events.post(new Ping());
+    assertEquals(1, subscriber.received.size());
+  }
+
+  @Test
+  public void testUnsubscribeFromEventFindsWeaklyHeldSubscribers() {
+    Events events = new Events();
+    Subscriber subscriber = new Subscriber();
+    events.subscribeWeakly(subscriber);
+
+    events.unsubscribeFromEvent(subscriber, Ping.class);
+    events.post(new Ping());
+    assertEquals(0, subscriber.received.size());
+
+    events.resubscribeToEvent(subscriber, Ping.class);
+    events.post(new Ping());
+    assertEquals(1, subscriber.received.size());
+  }
+
+  @Test
+  public void testEachWeaklyHeldSubscriberIsFoundAmongOthers() {
+    Events events = new Events();
+    List<Subscriber> subscribers = new ArrayList<>();
+    for(int i = 0; i < 100; i++) {
+      Subscriber subscriber = new Subscriber();
+      events.subscribeWeakly(subscriber);
+      subscribers.add(subscriber);
+    }
+
+    try {
+      events.subscribe(subscribers.get(50));
+      fail();
+    }
+    catch(IllegalStateException expected) {}
+
+    for(int i = 0; i < subscribers.size(); i += 2) {
+      events.unsubscribe(subscribers.get(i));
+    }
+    events.post(new Ping());
+    for(int i = 0; i < subscribers.size(); i++) {
+      assertEquals(i % 2, subscribers.get(i).received.size());
+    }
+  }
+}
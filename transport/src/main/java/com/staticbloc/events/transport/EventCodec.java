@@ -0,0 +1,20 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Event;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes the fields of an event class to bytes, and reads them back in another process. Both processes have to
+ * register the same codec, under the same type id, with their {@link EventCodecs}.
+ */
+public interface EventCodec<E extends Event> {
+  void encode(E event, DataOutput out) throws IOException;
+
+  /**
+   * @param in has exactly the bytes that {@link #encode(Event, DataOutput)} wrote
+   */
+  E decode(DataInput in) throws IOException;
+}
@@ -0,0 +1,64 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The event classes that an {@link EventTransport} forwards, each with the {@link EventCodec} that writes it and the
+ * type id that identifies it on the wire. Register the same classes with the same type ids in every process.
+ */
+public final class EventCodecs {
+  /*package*/ static final int MAX_TYPE_ID = 0xFFFF;
+
+  /*package*/ static final class Registration<E extends Event> {
+    /*package*/ final int typeId;
+    /*package*/ final Class<E> eventClass;
+    /*package*/ final EventCodec<E> codec;
+
+    private Registration(int typeId, Class<E> eventClass, EventCodec<E> codec) {
+      this.typeId = typeId;
+      this.eventClass = eventClass;
+      this.codec = codec;
+    }
+  }
+
+  private final Map<Class<? extends Event>, Registration<?>> byClass = new HashMap<>();
+  private final Map<Integer, Registration<?>> byTypeId = new HashMap<>();
+
+  /**
+   * Forwards events of exactly {@code eventClass}. Events of its subclasses are only forwarded if they're
+   * registered themselves, since {@code codec} couldn't recreate them.
+   *
+   * @param typeId between 0 and 65535
+   * @return this, so that registrations can be chained
+   */
+  public synchronized <E extends Event> EventCodecs register(int typeId, Class<E> eventClass, EventCodec<E> codec) {
+    if(typeId < 0 || typeId > MAX_TYPE_ID) {
+      throw new IllegalArgumentException("The type id must be between 0 and " + MAX_TYPE_ID);
+    }
+    if(eventClass == null || codec == null) {
+      throw new IllegalArgumentException("The event class and codec can't be null");
+    }
+    if(byClass.containsKey(eventClass)) {
+      throw new IllegalArgumentException(eventClass.getName() + " is already registered");
+    }
+    if(byTypeId.containsKey(typeId)) {
+      throw new IllegalArgumentException("The type id " + typeId + " is already registered for " +
+          byTypeId.get(typeId).eventClass.getName());
+    }
+
+    Registration<E> registration = new Registration<>(typeId, eventClass, codec);
+    byClass.put(eventClass, registration);
+    byTypeId.put(typeId, registration);
+    return this;
+  }
+
+  /*package*/ synchronized List<Registration<?>> getRegistrations() {
+    return Collections.unmodifiableList(new ArrayList<>(byClass.values()));
+  }
+}
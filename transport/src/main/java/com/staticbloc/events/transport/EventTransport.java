@@ -0,0 +1,450 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Event;
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RunType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Forwards the events that are posted to an {@link Events} instance in this process to an {@link Events} instance in
+ * another process, and posts the events that the other process forwards. Only the classes that are registered with
+ * the {@link EventCodecs} are forwarded.
+ * <br>
+ * <br>
+ * Each direction is a ring in a memory-mapped file, so the two processes have to be able to open the same files, with
+ * {@code outgoingFile} in one process being {@code incomingFile} in the other. A forwarded event is encoded on the
+ * posting thread, into a buffer that the thread reuses, and a writer thread copies everything that was encoded since
+ * its last write into the ring at once.
+ * A reader thread on the other side decodes the events and posts them, in the order they were posted, through that
+ * side's normal {@link Events#post(Event) post}, so they're routed and delivered like any other event there. Posting a
+ * received event doesn't forward it back.
+ * <br>
+ * <br>
+ * If the ring is full, the writer waits for the other side to read, and up to twice the ring's capacity of encoded
+ * events queue up in memory until it does: what the writer is waiting to write, and a ring's worth behind that. Events
+ * that are forwarded while that is full as well are dropped (see {@link #getDroppedEventCount()}), so a stalled or
+ * missing other side can't make this side run out of memory. Events that were written while the other side wasn't
+ * running are posted once it starts, as long as the files are kept.
+ * <br>
+ * <br>
+ * An event that can't be encoded is dropped as well (see {@link #getUnencodableEventCount()}), instead of throwing out
+ * of the {@code post} that forwarded it.
+ */
+public final class EventTransport implements Closeable {
+  public static final int DEFAULT_RING_CAPACITY = 1 << 20;
+
+  // how long the reader waits before checking an empty ring again, doubling while it stays empty
+  private static final long MIN_READER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final long MAX_READER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+  // how long the writer waits before checking a full ring again
+  private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // the length of a record covers its type id and the encoded event, but not the length itself
+  private static final int LENGTH_SIZE = 4;
+  private static final int TYPE_ID_SIZE = 2;
+
+  private final Events events;
+  private final List<EventCodecs.Registration<?>> registrations;
+  // the registrations by type id, for the reader
+  private final EventCodecs.Registration<?>[] registrationsByTypeId;
+  private final List<ForwardingListener<?>> listeners;
+
+  private final MappedRing outgoing;
+  private final MappedRing incoming;
+  private final PendingRecords pendingRecords;
+  // each posting thread encodes its records into its own buffer, and copies them into pendingRecords from there
+  private final ThreadLocal<RecordEncoder> recordEncoders = new ThreadLocal<RecordEncoder>() {
+    @Override
+    protected RecordEncoder initialValue() {
+      return new RecordEncoder();
+    }
+  };
+
+  private final Thread writerThread;
+  private final Thread readerThread;
+  // the event that the reader is posting, so that it isn't forwarded back; only accessed on the reader thread
+  private Event receivedEvent;
+
+  private final AtomicLong forwardedEventCount = new AtomicLong();
+  private final AtomicLong writtenEventCount = new AtomicLong();
+  private final AtomicLong droppedEventCount = new AtomicLong();
+  private final AtomicLong unencodableEventCount = new AtomicLong();
+  private final AtomicLong receivedEventCount = new AtomicLong();
+  private final AtomicLong undecodableEventCount = new AtomicLong();
+  private final AtomicLong corruptRecordCount = new AtomicLong();
+
+  private volatile boolean closed;
+
+  private final class ForwardingListener<E extends Event> implements Events.OnEventListener<E> {
+    private final EventCodecs.Registration<E> registration;
+
+    private ForwardingListener(EventCodecs.Registration<E> registration) {
+      this.registration = registration;
+    }
+
+    @Override
+    public void onEvent(E event) {
+      // subclasses are routed here as well, but they have their own registrations if they can be forwarded
+      if(event.getClass() != registration.eventClass || isReceivedEvent(event)) {
+        return;
+      }
+
+      forward(registration, event);
+    }
+
+    private void subscribe() {
+      events.subscribe(registration.eventClass, this, RunType.DEFAULT);
+    }
+
+    private void unsubscribe() {
+      events.unsubscribe(registration.eventClass, this, RunType.DEFAULT);
+    }
+  }
+
+  public EventTransport(Events events, EventCodecs codecs, File outgoingFile, File incomingFile) throws IOException {
+    this(events, codecs, outgoingFile, incomingFile, DEFAULT_RING_CAPACITY);
+  }
+
+  /**
+   * @param ringCapacity the size of each ring in bytes, which must be a power of two and the same in both processes;
+   *                     it also bounds how many bytes of encoded events can wait in memory for room in the ring
+   */
+  public EventTransport(Events events, EventCodecs codecs, File outgoingFile, File incomingFile,
+                        int ringCapacity) throws IOException {
+    if(events == null || codecs == null) {
+      throw new IllegalArgumentException("Events and the codecs can't be null");
+    }
+
+    this.events = events;
+    this.registrations = codecs.getRegistrations();
+    this.registrationsByTypeId = new EventCodecs.Registration<?>[EventCodecs.MAX_TYPE_ID + 1];
+    for(EventCodecs.Registration<?> registration : registrations) {
+      registrationsByTypeId[registration.typeId] = registration;
+    }
+
+    this.outgoing = new MappedRing(outgoingFile, ringCapacity, true);
+    try {
+      this.incoming = new MappedRing(incomingFile, ringCapacity, false);
+    }
+    catch(IOException | RuntimeException e) {
+      outgoing.close();
+      throw e;
+    }
+    this.pendingRecords = new PendingRecords(ringCapacity);
+
+    this.writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          writeRecords();
+        }
+        catch(RuntimeException e) {
+          // a ring that locks its positions fails them once close() interrupts the thread
+          if(!closed) {
+            throw e;
+          }
+        }
+      }
+    }, "EventTransport writer");
+    this.readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          readRecords();
+        }
+        catch(RuntimeException e) {
+          // a ring that locks its positions fails them once close() interrupts the thread
+          if(!closed) {
+            throw e;
+          }
+        }
+      }
+    }, "EventTransport reader");
+    writerThread.setDaemon(true);
+    readerThread.setDaemon(true);
+
+    this.listeners = new ArrayList<>(registrations.size());
+    for(EventCodecs.Registration<?> registration : registrations) {
+      ForwardingListener<?> listener = createListener(registration);
+      listener.subscribe();
+      listeners.add(listener);
+    }
+
+    // only once everything is forwarded, since the other side may have written events already, and the events that
+    // their handlers post in response have to be forwarded as well
+    writerThread.start();
+    readerThread.start();
+  }
+
+  private <E extends Event> ForwardingListener<E> createListener(EventCodecs.Registration<E> registration) {
+    return new ForwardingListener<>(registration);
+  }
+
+  /**
+   * Stops forwarding and receiving events. Events that were forwarded but not written yet are dropped, so wait for
+   * {@link #getPendingEventCount()} to get to 0 first if they matter.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if(closed) {
+      return;
+    }
+    closed = true;
+
+    for(ForwardingListener<?> listener : listeners) {
+      listener.unsubscribe();
+    }
+
+    writerThread.interrupt();
+    readerThread.interrupt();
+    try {
+      writerThread.join();
+      readerThread.join();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    outgoing.close();
+    incoming.close();
+  }
+
+  /**
+   * @return how many events were encoded to be forwarded, whether or not they were written to the ring yet
+   */
+  public long getForwardedEventCount() {
+    return forwardedEventCount.get();
+  }
+
+  /**
+   * @return how many events were dropped instead of forwarded because too many forwarded events were waiting for room
+   * in the ring
+   */
+  public long getDroppedEventCount() {
+    return droppedEventCount.get();
+  }
+
+  /**
+   * @return how many events were dropped instead of forwarded because their codec failed, or they were encoded to more
+   * than fits in the ring
+   */
+  public long getUnencodableEventCount() {
+    return unencodableEventCount.get();
+  }
+
+  /**
+   * @return how many forwarded events haven't been written to the ring yet
+   */
+  public long getPendingEventCount() {
+    return forwardedEventCount.get() - writtenEventCount.get();
+  }
+
+  /**
+   * @return how many events were received from the other process and posted
+   */
+  public long getReceivedEventCount() {
+    return receivedEventCount.get();
+  }
+
+  /**
+   * @return how many events were received with a type id that isn't registered, or couldn't be decoded, and were
+   * dropped
+   */
+  public long getUndecodableEventCount() {
+    return undecodableEventCount.get();
+  }
+
+  /**
+   * @return how many times the reader found a record whose length doesn't fit in what the other process published,
+   * which can only happen if the ring's file was changed by something else, and dropped everything that was published
+   * up to then
+   */
+  public long getCorruptRecordCount() {
+    return corruptRecordCount.get();
+  }
+
+  /**
+   * A reusable buffer for encoding records, with the stream that the codecs write to.
+   */
+  private static final class RecordEncoder extends ByteArrayOutputStream {
+    private final DataOutputStream out = new DataOutputStream(this);
+
+    private RecordEncoder() {
+      super(64);
+    }
+
+    private byte[] getBytes() {
+      return buf;
+    }
+  }
+
+  /**
+   * Encodes {@code event} on the posting thread and queues it for the writer, or counts it as dropped.
+   */
+  private <E extends Event> void forward(EventCodecs.Registration<E> registration, E event) {
+    RecordEncoder encoder = recordEncoders.get();
+    encoder.reset();
+    try {
+      // the length is filled in once it's known
+      encoder.out.writeInt(0);
+      encoder.out.writeShort(registration.typeId);
+      registration.codec.encode(event, encoder.out);
+      encoder.out.flush();
+    }
+    catch(IOException | RuntimeException e) {
+      // a codec failure is this transport's to deal with, not the posting thread's
+      unencodableEventCount.incrementAndGet();
+      return;
+    }
+
+    int recordLength = encoder.size();
+    if(recordLength > outgoing.getCapacity()) {
+      unencodableEventCount.incrementAndGet();
+      return;
+    }
+
+    byte[] record = encoder.getBytes();
+    int length = recordLength - LENGTH_SIZE;
+    record[0] = (byte) (length >>> 24);
+    record[1] = (byte) (length >>> 16);
+    record[2] = (byte) (length >>> 8);
+    record[3] = (byte) length;
+
+    // counted first, so that the pending count never goes below 0
+    forwardedEventCount.incrementAndGet();
+    if(!pendingRecords.offer(record, 0, recordLength)) {
+      forwardedEventCount.decrementAndGet();
+      droppedEventCount.incrementAndGet();
+    }
+  }
+
+  private void writeRecords() {
+    PendingRecords.Batch batch = pendingRecords.createBatch();
+    try {
+      while(!closed) {
+        pendingRecords.take(batch);
+
+        byte[] bytes = batch.getBytes();
+        int offset = 0;
+        while(offset < batch.getLength()) {
+          int recordLength = LENGTH_SIZE + ((bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 |
+              (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF));
+          while(!outgoing.hasRoomFor(recordLength)) {
+            // let the other side read what's already written while this waits for room
+            outgoing.publish();
+            LockSupport.parkNanos(WRITER_PARK_NANOS);
+            if(closed) {
+              return;
+            }
+          }
+          outgoing.write(bytes, offset, recordLength);
+          offset += recordLength;
+        }
+        outgoing.publish();
+        writtenEventCount.addAndGet(batch.getRecordCount());
+      }
+    }
+    catch(InterruptedException ignored) {}
+  }
+
+  private void readRecords() {
+    byte[] record = new byte[64];
+    long parkNanos = MIN_READER_PARK_NANOS;
+
+    while(!closed) {
+      int readable = incoming.getReadableCount();
+      if(readable == 0) {
+        LockSupport.parkNanos(parkNanos);
+        parkNanos = Math.min(parkNanos * 2, MAX_READER_PARK_NANOS);
+        continue;
+      }
+      parkNanos = MIN_READER_PARK_NANOS;
+
+      // everything that's readable is made of whole records, since the writer only publishes after a whole record
+      while(readable > 0 && !closed) {
+        if(readable < LENGTH_SIZE) {
+          skipCorruptRecords(readable);
+          break;
+        }
+        int length = incoming.readInt();
+        readable -= LENGTH_SIZE;
+        if(length < TYPE_ID_SIZE || length > readable) {
+          skipCorruptRecords(readable);
+          break;
+        }
+
+        if(record.length < length) {
+          record = new byte[Math.max(length, record.length * 2)];
+        }
+        incoming.read(record, 0, length);
+        readable -= length;
+
+        Event event = decode(record, length);
+        if(event != null) {
+          receivedEventCount.incrementAndGet();
+          post(event);
+        }
+        else {
+          undecodableEventCount.incrementAndGet();
+        }
+      }
+      incoming.release();
+    }
+  }
+
+  /**
+   * Drops the rest of what was published, so that the reader starts over at the beginning of the next record that the
+   * other process publishes, instead of reading past what was published or dying on a bad length.
+   */
+  private void skipCorruptRecords(int readable) {
+    incoming.skip(readable);
+    corruptRecordCount.incrementAndGet();
+  }
+
+  private void post(Event event) {
+    receivedEvent = event;
+    try {
+      events.post(event);
+    }
+    catch(RuntimeException e) {
+      // the reader has to keep going, or the other side would fill up the ring and stop forwarding
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+    finally {
+      receivedEvent = null;
+    }
+  }
+
+  private Event decode(byte[] record, int length) {
+    int typeId = (record[0] & 0xFF) << 8 | (record[1] & 0xFF);
+    EventCodecs.Registration<?> registration = registrationsByTypeId[typeId];
+    if(registration == null) {
+      return null;
+    }
+
+    try {
+      return registration.codec.decode(new DataInputStream(
+          new ByteArrayInputStream(record, TYPE_ID_SIZE, length - TYPE_ID_SIZE)));
+    }
+    catch(IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private boolean isReceivedEvent(Event event) {
+    return Thread.currentThread() == readerThread && event == receivedEvent;
+  }
+}
@@ -0,0 +1,204 @@
+package com.staticbloc.events.transport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A single producer, single consumer ring of bytes in a memory-mapped file, so that the producer and the consumer
+ * can be in different processes. Each side opens the same file; one only writes to it and the other only reads.
+ * <br>
+ * <br>
+ * The file starts with a header that holds the capacity and the two positions, each on its own cache line, followed by
+ * the ring itself. The positions are ints that count bytes and are allowed to overflow; only their difference, which
+ * is never more than the capacity, matters. Written bytes are only visible to the consumer once the producer
+ * {@link #publish() publishes} them, and the space they took only goes back to the producer once the consumer
+ * {@link #release() releases} it, so a whole batch costs one position update on each side.
+ * <br>
+ * <br>
+ * The Java memory model doesn't cover memory that is shared with another process, so the ring orders the accesses
+ * itself, with {@link OrderedInts}. The positions are aligned ints, so they're never torn. Each side stores its
+ * position with a release store, after the bytes it wrote or read, and loads the other side's position with an acquire
+ * load, before the bytes it reads or overwrites. Those compile to the instructions that order every access around
+ * them on the CPU (e.g. {@code stlr} and {@code ldar} on arm64), which covers the mapped memory too (or, where there
+ * are no such accesses, they're made while holding a lock on the position in the file). The header is
+ * published the same way: the capacity is written before the magic number, which is stored with a release store and
+ * loaded with an acquire load. The header and the positions are in the native byte order, since both sides are on the
+ * same machine.
+ */
+/*package*/ final class MappedRing implements Closeable {
+  private static final int MAGIC = 0x45565452; // "EVTR"
+
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int WRITE_POSITION_OFFSET = 64;
+  private static final int READ_POSITION_OFFSET = 128;
+  private static final int DATA_OFFSET = 192;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  // the release stores and acquire loads of the header and the positions
+  private final OrderedInts ints;
+  // positioned for the bulk puts and gets, which have no absolute versions
+  private final ByteBuffer data;
+  private final int capacity;
+  private final int mask;
+
+  // this side's position, which is only shared once it's published or released
+  private int position;
+  // the other side's position, as of the last time it was read
+  private int otherPosition;
+  private final byte[] intBytes = new byte[4];
+
+  /**
+   * @param producer whether this side writes to the ring; the other side must be the consumer
+   * @param capacity a power of two, which has to be the same on both sides
+   */
+  /*package*/ MappedRing(File ringFile, int capacity, boolean producer) throws IOException {
+    if(capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+      throw new IllegalArgumentException("The capacity must be a positive power of two");
+    }
+
+    this.file = new RandomAccessFile(ringFile, "rw");
+    try {
+      long length = DATA_OFFSET + (long) capacity;
+      if(file.length() < length) {
+        file.setLength(length);
+      }
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+      buffer.order(ByteOrder.nativeOrder());
+      ints = OrderedInts.create(buffer, ringFile, file.getChannel());
+
+      // both sides write the same header, so it doesn't matter which one opens the file first; the capacity is only
+      // read once the magic number shows that it was written
+      if(ints.getAcquire(MAGIC_OFFSET) != MAGIC) {
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        ints.putRelease(MAGIC_OFFSET, MAGIC);
+      }
+      else if(buffer.getInt(CAPACITY_OFFSET) != capacity) {
+        throw new IOException(ringFile + " has a capacity of " + buffer.getInt(CAPACITY_OFFSET) + ", not " + capacity);
+      }
+    }
+    catch(IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+
+    this.data = buffer.duplicate();
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+
+    // anything that was written while this side wasn't running is still there
+    this.position = buffer.getInt(producer ? WRITE_POSITION_OFFSET : READ_POSITION_OFFSET);
+    this.otherPosition = ints.getAcquire(producer ? READ_POSITION_OFFSET : WRITE_POSITION_OFFSET);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Producer only.
+   * @return whether {@code length} bytes can be written without overwriting any that the consumer hasn't released
+   */
+  public boolean hasRoomFor(int length) {
+    if(capacity - (position - otherPosition) < length) {
+      // acquired, so that nothing is written over the released bytes before the consumer is done reading them
+      otherPosition = ints.getAcquire(READ_POSITION_OFFSET);
+    }
+    return capacity - (position - otherPosition) >= length;
+  }
+
+  /**
+   * Producer only. Writes {@code length} bytes, which there must be {@link #hasRoomFor(int) room for}.
+   */
+  public void write(byte[] bytes, int offset, int length) {
+    int index = position & mask;
+    int firstPart = Math.min(length, capacity - index);
+    put(index, bytes, offset, firstPart);
+    put(0, bytes, offset + firstPart, length - firstPart);
+    position += length;
+  }
+
+  public void writeInt(int value) {
+    intBytes[0] = (byte) (value >>> 24);
+    intBytes[1] = (byte) (value >>> 16);
+    intBytes[2] = (byte) (value >>> 8);
+    intBytes[3] = (byte) value;
+    write(intBytes, 0, 4);
+  }
+
+  /**
+   * Producer only. Makes everything that was written so far visible to the consumer.
+   */
+  public void publish() {
+    // released, so that the consumer can't see the position before the bytes
+    ints.putRelease(WRITE_POSITION_OFFSET, position);
+  }
+
+  /**
+   * Consumer only.
+   * @return how many published bytes haven't been read yet
+   */
+  public int getReadableCount() {
+    int readable = otherPosition - position;
+    if(readable == 0) {
+      // acquired, so that none of the bytes are read before the producer's position was
+      otherPosition = ints.getAcquire(WRITE_POSITION_OFFSET);
+      readable = otherPosition - position;
+    }
+    return readable;
+  }
+
+  /**
+   * Consumer only. Reads {@code length} bytes, which must not be more than {@link #getReadableCount()}.
+   */
+  public void read(byte[] bytes, int offset, int length) {
+    int index = position & mask;
+    int firstPart = Math.min(length, capacity - index);
+    get(index, bytes, offset, firstPart);
+    get(0, bytes, offset + firstPart, length - firstPart);
+    position += length;
+  }
+
+  public int readInt() {
+    read(intBytes, 0, 4);
+    return (intBytes[0] & 0xFF) << 24 | (intBytes[1] & 0xFF) << 16 | (intBytes[2] & 0xFF) << 8 | (intBytes[3] & 0xFF);
+  }
+
+  /**
+   * Consumer only. Skips {@code length} bytes, which must not be more than {@link #getReadableCount()}.
+   */
+  public void skip(int length) {
+    position += length;
+  }
+
+  /**
+   * Consumer only. Gives the space of everything that was read so far back to the producer.
+   */
+  public void release() {
+    // released, so that the producer can't see the space before everything in it was read
+    ints.putRelease(READ_POSITION_OFFSET, position);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // the mapping itself stays until the buffer is collected
+    file.close();
+  }
+
+  private void put(int index, byte[] bytes, int offset, int length) {
+    data.position(DATA_OFFSET + index);
+    data.put(bytes, offset, length);
+  }
+
+  private void get(int index, byte[] bytes, int offset, int length) {
+    data.position(DATA_OFFSET + index);
+    data.get(bytes, offset, length);
+  }
+}
@@ -0,0 +1,302 @@
+package com.staticbloc.events.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Release stores and acquire loads of the ints in a direct {@link ByteBuffer}, in its native byte order, for memory
+ * that is shared with another process. Uses a byte buffer view {@code VarHandle} where there is one (Java 9, and
+ * the Android versions that have VarHandles), or {@code sun.misc.Unsafe}'s ordered accessors on the buffer's address
+ * on older JVMs. Anywhere else (Android before VarHandles), each access takes a lock on the int's bytes in the
+ * buffer's file.
+ * <br>
+ * <br>
+ * The first two are only reached through reflection, since the module is compiled against an Android API level that
+ * has neither, so each access costs a reflective call, and the locks cost two system calls. That's fine for the ring's
+ * positions, which are only accessed once per batch.
+ */
+/*package*/ abstract class OrderedInts {
+  /**
+   * @param index a multiple of 4, relative to the start of the buffer
+   */
+  public abstract void putRelease(int index, int value);
+
+  /**
+   * @param index a multiple of 4, relative to the start of the buffer
+   */
+  public abstract int getAcquire(int index);
+
+  /**
+   * @param buffer a direct buffer whose address is a multiple of 4, which mapped buffers always are
+   * @param file the file that {@code buffer} maps, from the start
+   * @param channel a channel for {@code file} that can be locked
+   */
+  public static OrderedInts create(ByteBuffer buffer, File file, FileChannel channel) throws IOException {
+    if(!buffer.isDirect()) {
+      throw new IllegalArgumentException("Only a direct buffer can be shared with another process");
+    }
+
+    OrderedInts ints = VarHandleInts.tryCreate(buffer);
+    if(ints == null) {
+      ints = UnsafeInts.tryCreate(buffer);
+    }
+    if(ints == null) {
+      ints = LockedInts.forFile(buffer, file, channel);
+    }
+    return ints;
+  }
+
+  private static RuntimeException rethrow(InvocationTargetException e) {
+    Throwable cause = e.getCause();
+    if(cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if(cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IllegalStateException(cause);
+  }
+
+  /*package*/ static final class VarHandleInts extends OrderedInts {
+    private final Method invokeWithArguments;
+    private final Object setRelease;
+    private final Object getAcquire;
+    private final ByteBuffer buffer;
+
+    private VarHandleInts(Method invokeWithArguments, Object setRelease, Object getAcquire, ByteBuffer buffer) {
+      this.invokeWithArguments = invokeWithArguments;
+      this.setRelease = setRelease;
+      this.getAcquire = getAcquire;
+      this.buffer = buffer;
+    }
+
+    /**
+     * @return {@code null} if there are no byte buffer VarHandles
+     */
+    /*package*/ static VarHandleInts tryCreate(ByteBuffer buffer) {
+      try {
+        Class<?> methodHandles = Class.forName("java.lang.invoke.MethodHandles");
+        Class<?> methodHandle = Class.forName("java.lang.invoke.MethodHandle");
+        Class<?> varHandle = Class.forName("java.lang.invoke.VarHandle");
+        Class<?> accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+
+        Object ints = methodHandles.getMethod("byteBufferViewVarHandle", Class.class, ByteOrder.class)
+            .invoke(null, int[].class, ByteOrder.nativeOrder());
+        // VarHandle's own access methods can't be called reflectively, but the method handles for them can
+        Method toMethodHandle = varHandle.getMethod("toMethodHandle", accessMode);
+        Object setRelease = toMethodHandle.invoke(ints, accessModeNamed(accessMode, "SET_RELEASE"));
+        Object getAcquire = toMethodHandle.invoke(ints, accessModeNamed(accessMode, "GET_ACQUIRE"));
+        return new VarHandleInts(methodHandle.getMethod("invokeWithArguments", Object[].class),
+            setRelease, getAcquire, buffer);
+      }
+      catch(ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+        return null;
+      }
+      catch(InvocationTargetException e) {
+        throw rethrow(e);
+      }
+    }
+
+    private static Object accessModeNamed(Class<?> accessMode, String name) {
+      for(Object mode : accessMode.getEnumConstants()) {
+        if(((Enum<?>) mode).name().equals(name)) {
+          return mode;
+        }
+      }
+      throw new IllegalStateException("There's no VarHandle access mode named " + name);
+    }
+
+    @Override
+    public void putRelease(int index, int value) {
+      invoke(setRelease, buffer, index, value);
+    }
+
+    @Override
+    public int getAcquire(int index) {
+      return (Integer) invoke(getAcquire, buffer, index);
+    }
+
+    private Object invoke(Object methodHandle, Object... arguments) {
+      try {
+        return invokeWithArguments.invoke(methodHandle, new Object[] {arguments});
+      }
+      catch(IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+      catch(InvocationTargetException e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  /*package*/ static final class UnsafeInts extends OrderedInts {
+    private final Object unsafe;
+    private final Method putOrderedInt;
+    private final Method getIntVolatile;
+    private final long address;
+    // the buffer is kept so that its memory isn't unmapped while its address is used
+    private final ByteBuffer buffer;
+
+    private UnsafeInts(Object unsafe, Method putOrderedInt, Method getIntVolatile, long address, ByteBuffer buffer) {
+      this.unsafe = unsafe;
+      this.putOrderedInt = putOrderedInt;
+      this.getIntVolatile = getIntVolatile;
+      this.address = address;
+      this.buffer = buffer;
+    }
+
+    /**
+     * @return {@code null} on Android, whose {@code Unsafe} can't access raw addresses, or if there's no
+     * {@code Unsafe}
+     */
+    /*package*/ static UnsafeInts tryCreate(ByteBuffer buffer) {
+      // ART reports itself as Dalvik as well
+      if("Dalvik".equals(System.getProperty("java.vm.name"))) {
+        return null;
+      }
+
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        Object unsafe = theUnsafe.get(null);
+
+        long addressOffset = (Long) unsafeClass.getMethod("objectFieldOffset", Field.class)
+            .invoke(unsafe, Buffer.class.getDeclaredField("address"));
+        long address = (Long) unsafeClass.getMethod("getLong", Object.class, long.class)
+            .invoke(unsafe, buffer, addressOffset);
+        return new UnsafeInts(unsafe,
+            unsafeClass.getMethod("putOrderedInt", Object.class, long.class, int.class),
+            unsafeClass.getMethod("getIntVolatile", Object.class, long.class),
+            address, buffer);
+      }
+      catch(ClassNotFoundException | NoSuchFieldException | NoSuchMethodException | IllegalAccessException |
+          InvocationTargetException | RuntimeException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public void putRelease(int index, int value) {
+      checkIndex(index);
+      invoke(putOrderedInt, null, address + index, value);
+    }
+
+    @Override
+    public int getAcquire(int index) {
+      checkIndex(index);
+      return (Integer) invoke(getIntVolatile, null, address + index);
+    }
+
+    // Unsafe doesn't check anything, and a bad index would be a crash instead of an exception
+    private void checkIndex(int index) {
+      if(index < 0 || index > buffer.capacity() - 4 || (index & 3) != 0) {
+        throw new IndexOutOfBoundsException("Can't access an aligned int at " + index);
+      }
+    }
+
+    private Object invoke(Method method, Object... arguments) {
+      try {
+        return method.invoke(unsafe, arguments);
+      }
+      catch(IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+      catch(InvocationTargetException e) {
+        throw rethrow(e);
+      }
+    }
+  }
+
+  /**
+   * Takes a lock on the int's bytes in the file around each access. A file lock is taken and released with a system
+   * call, and the kernel orders those with its own locks, so whatever one process wrote to the mapping before
+   * releasing a lock is visible to the next process that takes it.
+   * <br>
+   * <br>
+   * A JVM only lets one of its channels hold a lock on a region of a file at a time, and throws instead of waiting, so
+   * the file lock is taken while holding a monitor that every {@code LockedInts} for the same file in this JVM shares.
+   * The monitor also orders the accesses between threads in this JVM.
+   */
+  /*package*/ static final class LockedInts extends OrderedInts {
+    // by canonical path
+    private static final Map<String, Object> fileMonitors = new HashMap<>();
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private final Object fileMonitor;
+
+    private LockedInts(ByteBuffer buffer, FileChannel channel, Object fileMonitor) {
+      this.buffer = buffer;
+      this.channel = channel;
+      this.fileMonitor = fileMonitor;
+    }
+
+    /*package*/ static LockedInts forFile(ByteBuffer buffer, File file, FileChannel channel) throws IOException {
+      String path = file.getCanonicalPath();
+      Object fileMonitor;
+      synchronized(fileMonitors) {
+        fileMonitor = fileMonitors.get(path);
+        if(fileMonitor == null) {
+          fileMonitor = new Object();
+          fileMonitors.put(path, fileMonitor);
+        }
+      }
+      return new LockedInts(buffer, channel, fileMonitor);
+    }
+
+    @Override
+    public void putRelease(int index, int value) {
+      synchronized(fileMonitor) {
+        FileLock lock = lock(index);
+        try {
+          buffer.putInt(index, value);
+        }
+        finally {
+          release(lock);
+        }
+      }
+    }
+
+    @Override
+    public int getAcquire(int index) {
+      synchronized(fileMonitor) {
+        FileLock lock = lock(index);
+        try {
+          return buffer.getInt(index);
+        }
+        finally {
+          release(lock);
+        }
+      }
+    }
+
+    private FileLock lock(int index) {
+      try {
+        return channel.lock(index, 4, false);
+      }
+      catch(IOException e) {
+        throw new IllegalStateException("Couldn't lock the int at " + index, e);
+      }
+    }
+
+    private static void release(FileLock lock) {
+      try {
+        lock.release();
+      }
+      catch(IOException e) {
+        throw new IllegalStateException("Couldn't release " + lock, e);
+      }
+    }
+  }
+}
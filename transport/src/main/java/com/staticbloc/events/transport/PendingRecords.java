@@ -0,0 +1,88 @@
+package com.staticbloc.events.transport;
+
+/**
+ * The records that were encoded on posting threads but not written to the ring yet, in a fixed amount of memory.
+ * Posting threads copy their records in, and the writer takes all of them at once by swapping its buffer for the one
+ * they were copied into, so neither side allocates anything.
+ */
+/*package*/ final class PendingRecords {
+  /**
+   * The writer's side of the buffers: the records that it took, one after the other.
+   */
+  public static final class Batch {
+    private byte[] bytes;
+    private int length;
+    private int recordCount;
+
+    private Batch(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    public byte[] getBytes() {
+      return bytes;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public int getRecordCount() {
+      return recordCount;
+    }
+  }
+
+  private final int capacity;
+  private byte[] bytes;
+  private int length;
+  private int recordCount;
+
+  /**
+   * @param capacity how many bytes of records can be pending
+   */
+  public PendingRecords(int capacity) {
+    this.capacity = capacity;
+    this.bytes = new byte[capacity];
+  }
+
+  /**
+   * @return a batch for the writer to {@link #take(Batch) take} the records with, which has a buffer of the same size
+   */
+  public Batch createBatch() {
+    return new Batch(capacity);
+  }
+
+  /**
+   * Copies a record in, unless there isn't room for it.
+   * @return {@code false} if there wasn't room, in which case the record is dropped
+   */
+  public synchronized boolean offer(byte[] record, int offset, int recordLength) {
+    if(bytes.length - length < recordLength) {
+      return false;
+    }
+
+    System.arraycopy(record, offset, bytes, length, recordLength);
+    length += recordLength;
+    if(recordCount++ == 0) {
+      notifyAll();
+    }
+    return true;
+  }
+
+  /**
+   * Waits until there is at least one record, and then swaps the buffer of {@code batch} with the one the records are
+   * in, so that {@code batch} holds all of them until the next call.
+   */
+  public synchronized void take(Batch batch) throws InterruptedException {
+    while(recordCount == 0) {
+      wait();
+    }
+
+    byte[] taken = bytes;
+    bytes = batch.bytes;
+    batch.bytes = taken;
+    batch.length = length;
+    batch.recordCount = recordCount;
+    length = 0;
+    recordCount = 0;
+  }
+}
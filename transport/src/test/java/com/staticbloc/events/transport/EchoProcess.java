@@ -0,0 +1,45 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RunType;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs in its own JVM for {@link EventTransportTest}, and answers every {@link TestEvents.Ping} it receives with a
+ * {@link TestEvents.Pong}, until it receives one with a negative sequence.
+ */
+public final class EchoProcess {
+  private EchoProcess() {}
+
+  public static void main(String[] args) throws Exception {
+    final Events events = new Events();
+    final CountDownLatch stopped = new CountDownLatch(1);
+
+    events.subscribe(TestEvents.Ping.class, new Events.OnEventListener<TestEvents.Ping>() {
+      @Override
+      public void onEvent(TestEvents.Ping ping) {
+        if(ping.sequence < 0) {
+          stopped.countDown();
+        }
+        else {
+          events.post(new TestEvents.Pong(ping.sequence, ping.text));
+        }
+      }
+    }, RunType.DEFAULT);
+
+    EventTransport transport = new EventTransport(events, TestEvents.createCodecs(), new File(args[0]),
+        new File(args[1]), Integer.parseInt(args[2]));
+    try {
+      stopped.await();
+      // the last pongs might still be waiting for the writer
+      while(transport.getPendingEventCount() > 0) {
+        Thread.sleep(1);
+      }
+    }
+    finally {
+      transport.close();
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Event;
+import com.staticbloc.events.Events;
+import com.staticbloc.events.RunType;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventTransportTest {
+  // small enough that the rings fill up and wrap around
+  private static final int RING_CAPACITY = 4096;
+  // well under a ring's worth of records
+  private static final int MAX_UNANSWERED_PINGS = 64;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static class Recorder<E extends Event> implements Events.OnEventListener<E> {
+    private final List<E> events = Collections.synchronizedList(new ArrayList<E>());
+    private final CountDownLatch latch;
+
+    private Recorder(int expectedCount) {
+      this.latch = new CountDownLatch(expectedCount);
+    }
+
+    @Override
+    public void onEvent(E event) {
+      events.add(event);
+      latch.countDown();
+    }
+
+    private void await() throws InterruptedException {
+      assertTrue(latch.await(30, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testForwardsEventsToAnotherProcess() throws Exception {
+    File toEcho = folder.newFile();
+    File fromEcho = folder.newFile();
+    int pingCount = 10000;
+
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    Process echo = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), EchoProcess.class.getName(),
+        fromEcho.getPath(), toEcho.getPath(), Integer.toString(RING_CAPACITY))
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+        .start();
+
+    Events events = new Events();
+    Recorder<TestEvents.Pong> pongs = new Recorder<>(pingCount);
+    events.subscribe(TestEvents.Pong.class, pongs, RunType.DEFAULT);
+    EventTransport transport = new EventTransport(events, TestEvents.createCodecs(), toEcho, fromEcho, RING_CAPACITY);
+    try {
+      for(int i = 0; i < pingCount; i++) {
+        // keeps both sides' pending records from filling up, which would drop pings or pongs
+        while(i - pongs.events.size() >= MAX_UNANSWERED_PINGS) {
+          Thread.yield();
+        }
+        events.post(new TestEvents.Ping(i, "ping " + i));
+      }
+      pongs.await();
+      events.post(new TestEvents.Ping(-1, "stop"));
+      assertEquals(0, echo.waitFor());
+    }
+    finally {
+      transport.close();
+      echo.destroy();
+    }
+
+    for(int i = 0; i < pingCount; i++) {
+      TestEvents.Pong pong = pongs.events.get(i);
+      assertEquals(i, pong.sequence);
+      assertEquals("ping " + i, pong.text);
+    }
+    assertEquals(pingCount + 1, transport.getForwardedEventCount());
+    assertEquals(pingCount, transport.getReceivedEventCount());
+  }
+
+  @Test
+  public void testReceivedEventsArentForwardedBack() throws Exception {
+    File aToB = folder.newFile();
+    File bToA = folder.newFile();
+    Events a = new Events();
+    Events b = new Events();
+    Recorder<TestEvents.Ping> aPings = new Recorder<>(1);
+    Recorder<TestEvents.Ping> bPings = new Recorder<>(1);
+    a.subscribe(TestEvents.Ping.class, aPings, RunType.DEFAULT);
+    b.subscribe(TestEvents.Ping.class, bPings, RunType.DEFAULT);
+
+    EventTransport aTransport = new EventTransport(a, TestEvents.createCodecs(), aToB, bToA, RING_CAPACITY);
+    EventTransport bTransport = new EventTransport(b, TestEvents.createCodecs(), bToA, aToB, RING_CAPACITY);
+    try {
+      a.post(new TestEvents.Ping(1, "ping"));
+      bPings.await();
+      assertEquals(1, bTransport.getReceivedEventCount());
+      assertEquals(0, bTransport.getForwardedEventCount());
+      assertEquals(1, aPings.events.size());
+    }
+    finally {
+      aTransport.close();
+      bTransport.close();
+    }
+  }
+
+  @Test
+  public void testOnlyForwardsExactlyTheRegisteredClasses() throws Exception {
+    File aToB = folder.newFile();
+    File bToA = folder.newFile();
+    Events a = new Events();
+    Events b = new Events();
+    Recorder<TestEvents.Ping> bPings = new Recorder<>(1);
+    b.subscribe(TestEvents.Ping.class, bPings, RunType.DEFAULT);
+
+    EventTransport aTransport = new EventTransport(a, TestEvents.createCodecs(), aToB, bToA, RING_CAPACITY);
+    EventTransport bTransport = new EventTransport(b, TestEvents.createCodecs(), bToA, aToB, RING_CAPACITY);
+    try {
+      a.post(new TestEvents.LoudPing(1, "loud"));
+      a.post(new TestEvents.Ping(2, "quiet"));
+      bPings.await();
+      assertEquals(2, bPings.events.get(0).sequence);
+      assertEquals(TestEvents.Ping.class, bPings.events.get(0).getClass());
+      assertEquals(1, aTransport.getForwardedEventCount());
+    }
+    finally {
+      aTransport.close();
+      bTransport.close();
+    }
+  }
+
+  private static void awaitCorruptRecordCount(EventTransport transport, long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while(transport.getCorruptRecordCount() < count) {
+      assertTrue(System.nanoTime() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testRecordsWithABadLengthAreSkipped() throws Exception {
+    File incoming = folder.newFile();
+    Events events = new Events();
+    Recorder<TestEvents.Ping> pings = new Recorder<>(1);
+    events.subscribe(TestEvents.Ping.class, pings, RunType.DEFAULT);
+
+    // something other than a transport writes to the ring
+    MappedRing ring = new MappedRing(incoming, RING_CAPACITY, true);
+    EventTransport transport = new EventTransport(events, TestEvents.createCodecs(), folder.newFile(), incoming,
+        RING_CAPACITY);
+    try {
+      // longer than what's published
+      ring.writeInt(RING_CAPACITY);
+      ring.writeInt(0);
+      ring.publish();
+      awaitCorruptRecordCount(transport, 1);
+
+      // too short for a type id
+      ring.writeInt(1);
+      ring.write(new byte[1], 0, 1);
+      ring.publish();
+      awaitCorruptRecordCount(transport, 2);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeShort(1);
+      out.writeInt(7);
+      out.writeUTF("ping");
+      ring.writeInt(bytes.size());
+      ring.write(bytes.toByteArray(), 0, bytes.size());
+      ring.publish();
+      pings.await();
+
+      assertEquals(7, pings.events.get(0).sequence);
+      assertEquals(2, transport.getCorruptRecordCount());
+    }
+    finally {
+      transport.close();
+      ring.close();
+    }
+  }
+
+  @Test
+  public void testEventsThatCantBeEncodedAreCountedInsteadOfThrown() throws Exception {
+    Events events = new Events();
+    EventCodecs codecs = TestEvents.createCodecs()
+        .register(3, TestEvents.LoudPing.class, new EventCodec<TestEvents.LoudPing>() {
+          @Override
+          public void encode(TestEvents.LoudPing event, DataOutput out) {
+            throw new IllegalStateException("can't encode " + event.text);
+          }
+
+          @Override
+          public TestEvents.LoudPing decode(DataInput in) {
+            return null;
+          }
+        });
+    EventTransport transport = new EventTransport(events, codecs, folder.newFile(), folder.newFile(), RING_CAPACITY);
+    try {
+      events.post(new TestEvents.LoudPing(1, "loud"));
+      // more than fits in the ring
+      char[] text = new char[RING_CAPACITY];
+      Arrays.fill(text, 'a');
+      events.post(new TestEvents.Ping(2, new String(text)));
+
+      assertEquals(2, transport.getUnencodableEventCount());
+      assertEquals(0, transport.getForwardedEventCount());
+    }
+    finally {
+      transport.close();
+    }
+  }
+
+  @Test
+  public void testDropsEventsOnceTheRingAndThePendingRecordsAreFull() throws Exception {
+    Events events = new Events();
+    // nothing reads the outgoing ring
+    EventTransport transport = new EventTransport(events, TestEvents.createCodecs(), folder.newFile(),
+        folder.newFile(), RING_CAPACITY);
+    try {
+      // each record is 16 bytes, so this is more than the ring, the writer and the pending records hold
+      int pingCount = RING_CAPACITY;
+      for(int i = 0; i < pingCount; i++) {
+        events.post(new TestEvents.Ping(i, "ping"));
+      }
+
+      assertTrue(transport.getDroppedEventCount() > 0);
+      assertEquals(pingCount, transport.getForwardedEventCount() + transport.getDroppedEventCount());
+      // what the writer took and is waiting to write, and what's waiting for the writer
+      assertTrue(transport.getPendingEventCount() * 16 <= 2 * RING_CAPACITY);
+    }
+    finally {
+      transport.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypeIdsAreUnique() {
+    TestEvents.createCodecs().register(1, TestEvents.LoudPing.class, new EventCodec<TestEvents.LoudPing>() {
+      @Override
+      public void encode(TestEvents.LoudPing event, DataOutput out) {}
+
+      @Override
+      public TestEvents.LoudPing decode(DataInput in) {
+        return null;
+      }
+    });
+  }
+}
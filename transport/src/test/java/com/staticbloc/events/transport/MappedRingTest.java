@@ -0,0 +1,107 @@
+package com.staticbloc.events.transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedRingTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testNothingIsReadableUntilItIsPublished() throws IOException {
+    File file = folder.newFile();
+    MappedRing producer = new MappedRing(file, 16, true);
+    MappedRing consumer = new MappedRing(file, 16, false);
+
+    producer.writeInt(42);
+    assertEquals(0, consumer.getReadableCount());
+
+    producer.publish();
+    assertEquals(4, consumer.getReadableCount());
+    assertEquals(42, consumer.readInt());
+    assertEquals(0, consumer.getReadableCount());
+  }
+
+  @Test
+  public void testSpaceIsOnlyReturnedOnceItIsReleased() throws IOException {
+    File file = folder.newFile();
+    MappedRing producer = new MappedRing(file, 16, true);
+    MappedRing consumer = new MappedRing(file, 16, false);
+
+    producer.write(new byte[12], 0, 12);
+    producer.publish();
+    assertTrue(producer.hasRoomFor(4));
+    assertFalse(producer.hasRoomFor(5));
+
+    consumer.read(new byte[8], 0, 8);
+    assertFalse(producer.hasRoomFor(5));
+
+    consumer.release();
+    assertTrue(producer.hasRoomFor(12));
+    assertFalse(producer.hasRoomFor(13));
+  }
+
+  @Test
+  public void testWritesWrapAroundTheEnd() throws IOException {
+    File file = folder.newFile();
+    MappedRing producer = new MappedRing(file, 16, true);
+    MappedRing consumer = new MappedRing(file, 16, false);
+
+    byte[] bytes = new byte[10];
+    byte[] read = new byte[10];
+    for(int round = 0; round < 100; round++) {
+      for(int i = 0; i < bytes.length; i++) {
+        bytes[i] = (byte) (round + i);
+      }
+      assertTrue(producer.hasRoomFor(bytes.length));
+      producer.write(bytes, 0, bytes.length);
+      producer.publish();
+
+      assertEquals(bytes.length, consumer.getReadableCount());
+      consumer.read(read, 0, read.length);
+      consumer.release();
+      assertArrayEquals(bytes, read);
+    }
+  }
+
+  @Test
+  public void testReopeningKeepsUnreadBytes() throws IOException {
+    File file = folder.newFile();
+    MappedRing producer = new MappedRing(file, 16, true);
+    producer.writeInt(1);
+    producer.writeInt(2);
+    producer.publish();
+    producer.close();
+
+    MappedRing consumer = new MappedRing(file, 16, false);
+    assertEquals(1, consumer.readInt());
+    consumer.release();
+    consumer.close();
+
+    consumer = new MappedRing(file, 16, false);
+    assertEquals(4, consumer.getReadableCount());
+    assertEquals(2, consumer.readInt());
+  }
+
+  @Test
+  public void testTheCapacityMustMatch() throws IOException {
+    File file = folder.newFile();
+    new MappedRing(file, 16, true).close();
+
+    try {
+      new MappedRing(file, 32, false);
+      fail();
+    }
+    catch(IOException expected) {}
+  }
+}
@@ -0,0 +1,128 @@
+package com.staticbloc.events.transport;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class OrderedIntsTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static ByteBuffer buffer() {
+    return ByteBuffer.allocateDirect(64).order(ByteOrder.nativeOrder());
+  }
+
+  private static void assertAccessesTheBuffersInts(OrderedInts ints, ByteBuffer buffer) {
+    ints.putRelease(8, 42);
+    assertEquals(42, buffer.getInt(8));
+    assertEquals(0, buffer.getInt(4));
+    assertEquals(0, buffer.getInt(12));
+
+    buffer.putInt(60, -7);
+    assertEquals(-7, ints.getAcquire(60));
+  }
+
+  @Test
+  public void testVarHandleInts() {
+    ByteBuffer buffer = buffer();
+    OrderedInts ints = OrderedInts.VarHandleInts.tryCreate(buffer);
+    // the tests run on a JVM that has them
+    assertNotNull(ints);
+    assertAccessesTheBuffersInts(ints, buffer);
+  }
+
+  @Test
+  public void testUnsafeInts() {
+    ByteBuffer buffer = buffer();
+    OrderedInts ints = OrderedInts.UnsafeInts.tryCreate(buffer);
+    assertNotNull(ints);
+    assertAccessesTheBuffersInts(ints, buffer);
+  }
+
+  @Test
+  public void testUnsafeIntsCheckTheIndex() {
+    OrderedInts ints = OrderedInts.UnsafeInts.tryCreate(buffer());
+    for(int index : new int[] {-4, 2, 64, 61}) {
+      try {
+        ints.getAcquire(index);
+        fail();
+      }
+      catch(IndexOutOfBoundsException expected) {}
+    }
+  }
+
+  private static ByteBuffer map(RandomAccessFile file) throws IOException {
+    return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 64).order(ByteOrder.nativeOrder());
+  }
+
+  @Test
+  public void testLockedInts() throws IOException {
+    File file = folder.newFile();
+    try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      ByteBuffer buffer = map(randomAccessFile);
+      OrderedInts ints = OrderedInts.LockedInts.forFile(buffer, file, randomAccessFile.getChannel());
+      assertAccessesTheBuffersInts(ints, buffer);
+    }
+  }
+
+  @Test
+  public void testLockedIntsForTheSameFileCanBeUsedFromTwoThreads() throws Exception {
+    final File file = folder.newFile();
+    try(RandomAccessFile first = new RandomAccessFile(file, "rw");
+        RandomAccessFile second = new RandomAccessFile(file, "rw")) {
+      // like both rings of a transport that talks to itself, each with its own channel
+      final OrderedInts firstInts = OrderedInts.LockedInts.forFile(map(first), file, first.getChannel());
+      final OrderedInts secondInts = OrderedInts.LockedInts.forFile(map(second), file, second.getChannel());
+
+      final AtomicBoolean failed = new AtomicBoolean();
+      Thread writer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for(int i = 1; i <= 1000; i++) {
+              firstInts.putRelease(0, i);
+            }
+          }
+          catch(RuntimeException e) {
+            failed.set(true);
+          }
+        }
+      });
+      writer.start();
+      int last = 0;
+      while(last < 1000) {
+        int value = secondInts.getAcquire(0);
+        if(value < last) {
+          failed.set(true);
+          break;
+        }
+        last = value;
+      }
+      writer.join();
+      assertFalse(failed.get());
+    }
+  }
+
+  @Test
+  public void testOnlyDirectBuffersCanBeShared() throws IOException {
+    File file = folder.newFile();
+    try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      OrderedInts.create(ByteBuffer.allocate(64), file, randomAccessFile.getChannel());
+      fail();
+    }
+    catch(IllegalArgumentException expected) {}
+  }
+}
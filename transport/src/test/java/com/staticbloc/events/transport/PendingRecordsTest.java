@@ -0,0 +1,69 @@
+package com.staticbloc.events.transport;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PendingRecordsTest {
+  @Test
+  public void testTakesEveryRecordThatWasOffered() throws InterruptedException {
+    PendingRecords records = new PendingRecords(16);
+    PendingRecords.Batch batch = records.createBatch();
+
+    assertTrue(records.offer(new byte[] {9, 1, 2, 3}, 1, 3));
+    assertTrue(records.offer(new byte[] {4, 5}, 0, 2));
+    records.take(batch);
+    assertEquals(2, batch.getRecordCount());
+    assertEquals(5, batch.getLength());
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, Arrays.copyOf(batch.getBytes(), 5));
+
+    // the buffers were swapped, and the one that is offered into next starts out empty
+    assertTrue(records.offer(new byte[] {6}, 0, 1));
+    records.take(batch);
+    assertEquals(1, batch.getRecordCount());
+    assertEquals(1, batch.getLength());
+    assertEquals(6, batch.getBytes()[0]);
+  }
+
+  @Test
+  public void testDropsRecordsThatDontFit() throws InterruptedException {
+    PendingRecords records = new PendingRecords(8);
+    PendingRecords.Batch batch = records.createBatch();
+
+    assertTrue(records.offer(new byte[6], 0, 6));
+    assertFalse(records.offer(new byte[3], 0, 3));
+    assertTrue(records.offer(new byte[2], 0, 2));
+    assertFalse(records.offer(new byte[1], 0, 1));
+
+    records.take(batch);
+    assertEquals(2, batch.getRecordCount());
+    assertTrue(records.offer(new byte[8], 0, 8));
+  }
+
+  @Test
+  public void testTakeWaitsForARecord() throws InterruptedException {
+    final PendingRecords records = new PendingRecords(8);
+    PendingRecords.Batch batch = records.createBatch();
+
+    Thread offerer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(50);
+        }
+        catch(InterruptedException ignored) {}
+        records.offer(new byte[] {7}, 0, 1);
+      }
+    });
+    offerer.start();
+    records.take(batch);
+    assertEquals(1, batch.getRecordCount());
+    assertEquals(7, batch.getBytes()[0]);
+    offerer.join();
+  }
+}
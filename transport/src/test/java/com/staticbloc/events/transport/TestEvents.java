@@ -0,0 +1,69 @@
+package com.staticbloc.events.transport;
+
+import com.staticbloc.events.Event;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The events that the tests forward, which both processes register the same way.
+ */
+public final class TestEvents {
+  private TestEvents() {}
+
+  public static class Ping implements Event {
+    public final int sequence;
+    public final String text;
+
+    public Ping(int sequence, String text) {
+      this.sequence = sequence;
+      this.text = text;
+    }
+  }
+
+  public static class Pong implements Event {
+    public final int sequence;
+    public final String text;
+
+    public Pong(int sequence, String text) {
+      this.sequence = sequence;
+      this.text = text;
+    }
+  }
+
+  // registered, but not forwarded as a Ping, since the Ping codec couldn't recreate it
+  public static class LoudPing extends Ping {
+    public LoudPing(int sequence, String text) {
+      super(sequence, text);
+    }
+  }
+
+  public static EventCodecs createCodecs() {
+    return new EventCodecs()
+        .register(1, Ping.class, new EventCodec<Ping>() {
+          @Override
+          public void encode(Ping event, DataOutput out) throws IOException {
+            out.writeInt(event.sequence);
+            out.writeUTF(event.text);
+          }
+
+          @Override
+          public Ping decode(DataInput in) throws IOException {
+            return new Ping(in.readInt(), in.readUTF());
+          }
+        })
+        .register(2, Pong.class, new EventCodec<Pong>() {
+          @Override
+          public void encode(Pong event, DataOutput out) throws IOException {
+            out.writeInt(event.sequence);
+            out.writeUTF(event.text);
+          }
+
+          @Override
+          public Pong decode(DataInput in) throws IOException {
+            return new Pong(in.readInt(), in.readUTF());
+          }
+        });
+  }
+}